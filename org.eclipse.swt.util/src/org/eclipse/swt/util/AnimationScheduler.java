@@ -0,0 +1,256 @@
+package org.eclipse.swt.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * Runs the animations of all controls of a display from a single timer, so
+ * that the animations due at the same time are stepped and painted in one
+ * frame. The timer only runs while there are animations of visible controls.
+ * The animations of hidden controls are suspended until their control is
+ * painted again. The frame interval grows with the measured cost of stepping
+ * and painting a frame, so that animations can't saturate the UI thread. Must
+ * be used in the UI thread.
+ */
+public class AnimationScheduler implements Runnable {
+
+	/**
+	 * An animation which is stepped once per frame.
+	 */
+	public interface Animation {
+
+		/**
+		 * Advances the animation to the given time in milliseconds, and returns
+		 * false if it has finished. Frames can be farther apart than the
+		 * requested interval, so the animation should depend on the given time
+		 * instead of the number of frames.
+		 */
+		boolean step(long time);
+
+	}
+
+	private static final String DATA_KEY = AnimationScheduler.class.getName();
+
+	/**
+	 * The maximum interval between frames, however costly they are.
+	 */
+	private static final int MAX_FRAME_INTERVAL = 100;
+
+	/**
+	 * The frame interval is at least this many times the average cost of a
+	 * frame.
+	 */
+	private static final int FRAME_COST_FACTOR = 2;
+
+	/**
+	 * The weight of the last frame in the average frame cost.
+	 */
+	private static final double FRAME_COST_WEIGHT = 0.2;
+
+	private static class Entry {
+
+		private final Animation animation;
+
+		private final Control control;
+
+		private final int interval;
+
+		private long nextTime;
+
+		/**
+		 * Resumes the animation when its control is painted, or null if it is
+		 * not suspended.
+		 */
+		private Listener resumeListener;
+
+		public Entry(Animation animation, Control control, int interval, long nextTime) {
+			this.animation = animation;
+			this.control = control;
+			this.interval = interval;
+			this.nextTime = nextTime;
+		}
+
+	}
+
+	private final Display display;
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	/**
+	 * The time the timer is scheduled for, or -1 if it is not scheduled.
+	 */
+	private long scheduledTime = -1;
+
+	/**
+	 * The average time taken by stepping and painting a frame in
+	 * milliseconds.
+	 */
+	private double averageFrameCost = 0;
+
+	private AnimationScheduler(Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Returns the scheduler of the given display.
+	 */
+	public static AnimationScheduler getInstance(Display display) {
+		AnimationScheduler result = (AnimationScheduler)display.getData(DATA_KEY);
+		if (result == null) {
+			result = new AnimationScheduler(display);
+			display.setData(DATA_KEY, result);
+		}
+		return result;
+	}
+
+	private static long getTime() {
+		return System.nanoTime() / 1000000;
+	}
+
+	/**
+	 * Starts stepping the given animation of the given control with the given
+	 * interval in milliseconds, the first step being taken as soon as
+	 * possible. Restarts the animation if it is already running.
+	 */
+	public void start(Animation animation, Control control, int interval) {
+		stop(animation);
+		long now = getTime();
+		entries.add(new Entry(animation, control, interval, now));
+		schedule(now);
+	}
+
+	/**
+	 * Stops stepping the given animation.
+	 */
+	public void stop(Animation animation) {
+		Entry entry = getEntry(animation);
+		if (entry != null) {
+			remove(entry);
+		}
+	}
+
+	public boolean isRunning(Animation animation) {
+		return getEntry(animation) != null;
+	}
+
+	private Entry getEntry(Animation animation) {
+		for (Entry entry : entries) {
+			if (entry.animation == animation) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private void remove(Entry entry) {
+		entries.remove(entry);
+		if ((entry.resumeListener != null) && !entry.control.isDisposed()) {
+			entry.control.removeListener(SWT.Paint, entry.resumeListener);
+		}
+	}
+
+	/**
+	 * Returns the current minimum interval between frames in milliseconds.
+	 */
+	public int getFrameInterval() {
+		return (int)Math.min(MAX_FRAME_INTERVAL, Math.ceil(FRAME_COST_FACTOR * averageFrameCost));
+	}
+
+	/**
+	 * Returns the average time taken by stepping and painting a frame in
+	 * milliseconds.
+	 */
+	public double getAverageFrameCost() {
+		return averageFrameCost;
+	}
+
+	private int getInterval(Entry entry) {
+		return Math.max(entry.interval, getFrameInterval());
+	}
+
+	/**
+	 * Schedules the timer for the given time unless it is scheduled earlier.
+	 */
+	private void schedule(long time) {
+		if ((scheduledTime >= 0) && (scheduledTime <= time)) {
+			return;
+		}
+		display.timerExec(-1, this);
+		scheduledTime = time;
+		display.timerExec((int)Math.max(0, time - getTime()), this);
+	}
+
+	/**
+	 * Steps and paints the due animations.
+	 */
+	@Override
+	public void run() {
+		scheduledTime = -1;
+		long now = getTime();
+		Set<Control> steppedControls = new LinkedHashSet<Control>();
+		for (Entry entry : new ArrayList<Entry>(entries)) {
+			if (entry.control.isDisposed()) {
+				entries.remove(entry);
+			} else if (entry.resumeListener != null) {
+				// Suspended
+			} else if (!entry.control.isVisible()) {
+				suspend(entry);
+			} else if (entry.nextTime - now <= getInterval(entry) / 2) {
+				// The animations due before the middle of their next interval are stepped in this frame
+				if (entry.animation.step(now)) {
+					entry.nextTime = Math.max(entry.nextTime + getInterval(entry), now + getInterval(entry) / 2);
+				} else {
+					remove(entry);
+				}
+				steppedControls.add(entry.control);
+			}
+		}
+		if (!steppedControls.isEmpty()) {
+			for (Control control : steppedControls) {
+				if (!control.isDisposed()) {
+					control.update();
+				}
+			}
+			long cost = getTime() - now;
+			averageFrameCost += FRAME_COST_WEIGHT * (cost - averageFrameCost);
+		}
+		long nextTime = Long.MAX_VALUE;
+		for (Entry entry : entries) {
+			if (entry.resumeListener == null) {
+				nextTime = Math.min(nextTime, entry.nextTime);
+			}
+		}
+		if (nextTime < Long.MAX_VALUE) {
+			schedule(nextTime);
+		}
+	}
+
+	/**
+	 * Stops stepping the animation of a hidden control until the control is
+	 * painted.
+	 */
+	private void suspend(final Entry entry) {
+		entry.resumeListener = new Listener() {
+
+			@Override
+			public void handleEvent(Event event) {
+				entry.control.removeListener(SWT.Paint, this);
+				entry.resumeListener = null;
+				long now = getTime();
+				entry.nextTime = now;
+				schedule(now);
+			}
+
+		};
+		entry.control.addListener(SWT.Paint, entry.resumeListener);
+	}
+
+}
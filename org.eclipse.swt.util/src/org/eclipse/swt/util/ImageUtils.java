@@ -2,8 +2,13 @@ package org.eclipse.swt.util;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.PaletteData;
@@ -19,6 +24,10 @@ public class ImageUtils {
 	 * (ImageData).
 	 */
 	public static ImageData convertBufferedImageToImageData(BufferedImage bufferedImage) {
+		ImageData fastResult = convertBufferedImageToImageDataInBulk(bufferedImage);
+		if (fastResult != null) {
+			return fastResult;
+		}
 		if (bufferedImage.getColorModel() instanceof DirectColorModel) {
 			DirectColorModel colorModel = (DirectColorModel)bufferedImage.getColorModel();
 			PaletteData palette = new PaletteData(colorModel.getRedMask(), colorModel.getGreenMask(), colorModel.getBlueMask());
@@ -36,18 +45,7 @@ public class ImageUtils {
 			return data;
 		} else if (bufferedImage.getColorModel() instanceof IndexColorModel) {
 			IndexColorModel colorModel = (IndexColorModel)bufferedImage.getColorModel();
-			int size = colorModel.getMapSize();
-			byte[] reds = new byte[size];
-			byte[] greens = new byte[size];
-			byte[] blues = new byte[size];
-			colorModel.getReds(reds);
-			colorModel.getGreens(greens);
-			colorModel.getBlues(blues);
-			RGB[] rgbs = new RGB[size];
-			for (int i = 0; i < rgbs.length; i++) {
-				rgbs[i] = new RGB(reds[i] & 0xFF, greens[i] & 0xFF, blues[i] & 0xFF);
-			}
-			PaletteData palette = new PaletteData(rgbs);
+			PaletteData palette = createPalette(colorModel);
 			ImageData data = new ImageData(bufferedImage.getWidth(), bufferedImage.getHeight(), colorModel.getPixelSize(), palette);
 			data.transparentPixel = colorModel.getTransparentPixel();
 			WritableRaster raster = bufferedImage.getRaster();
@@ -64,6 +62,126 @@ public class ImageUtils {
 		}
 	}
 
+	/**
+	 * Converts the common raster layouts by copying whole scanlines from the
+	 * backing data buffer, or returns null if the layout is not supported.
+	 */
+	private static ImageData convertBufferedImageToImageDataInBulk(BufferedImage bufferedImage) {
+		WritableRaster raster = bufferedImage.getRaster();
+		switch (bufferedImage.getType()) {
+		case BufferedImage.TYPE_INT_RGB:
+			return convertIntImage(raster, false);
+		case BufferedImage.TYPE_INT_ARGB:
+			return convertIntImage(raster, true);
+		case BufferedImage.TYPE_3BYTE_BGR:
+			return convertThreeByteBgrImage(raster);
+		case BufferedImage.TYPE_BYTE_INDEXED:
+			return convertByteIndexedImage(raster, (IndexColorModel)bufferedImage.getColorModel());
+		default:
+			return null;
+		}
+	}
+
+	private static ImageData convertIntImage(WritableRaster raster, boolean hasAlpha) {
+		if (!(raster.getSampleModel() instanceof SinglePixelPackedSampleModel) || !(raster.getDataBuffer() instanceof DataBufferInt)) {
+			return null;
+		}
+		SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel)raster.getSampleModel();
+		DataBufferInt dataBuffer = (DataBufferInt)raster.getDataBuffer();
+		int[] source = dataBuffer.getData();
+		int sourceStride = sampleModel.getScanlineStride();
+		int sourceOffset = dataBuffer.getOffset() + sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+		int width = raster.getWidth();
+		int height = raster.getHeight();
+		PaletteData palette = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+		ImageData data = new ImageData(width, height, hasAlpha ? 32 : 24, palette);
+		byte[] target = data.data;
+		byte[] alphaTarget = null;
+		if (hasAlpha) {
+			alphaTarget = new byte[width * height];
+			data.alphaData = alphaTarget;
+		}
+		int bytesPerPixel = hasAlpha ? 4 : 3;
+		for (int y = 0; y < height; y++) {
+			int sourceIndex = sourceOffset + y * sourceStride;
+			int targetIndex = y * data.bytesPerLine;
+			int alphaIndex = y * width;
+			for (int x = 0; x < width; x++) {
+				int argb = source[sourceIndex++];
+				if (hasAlpha) {
+					alphaTarget[alphaIndex++] = (byte)(argb >>> 24);
+					target[targetIndex] = 0;
+				}
+				target[targetIndex + bytesPerPixel - 3] = (byte)(argb >> 16);
+				target[targetIndex + bytesPerPixel - 2] = (byte)(argb >> 8);
+				target[targetIndex + bytesPerPixel - 1] = (byte)argb;
+				targetIndex += bytesPerPixel;
+			}
+		}
+		return data;
+	}
+
+	private static ImageData convertThreeByteBgrImage(WritableRaster raster) {
+		if (!(raster.getSampleModel() instanceof ComponentSampleModel) || !(raster.getDataBuffer() instanceof DataBufferByte)) {
+			return null;
+		}
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
+		int[] bandOffsets = sampleModel.getBandOffsets();
+		if ((sampleModel.getPixelStride() != 3) || (bandOffsets[0] != 2) || (bandOffsets[1] != 1) || (bandOffsets[2] != 0)) {
+			return null;
+		}
+		byte[] source = dataBuffer.getData();
+		int sourceStride = sampleModel.getScanlineStride();
+		int sourceOffset = dataBuffer.getOffset() + sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY(), 2);
+		int width = raster.getWidth();
+		int height = raster.getHeight();
+		// The masks mirror the BGR byte order so that scanlines can be copied as they are
+		PaletteData palette = new PaletteData(0xFF, 0xFF00, 0xFF0000);
+		ImageData data = new ImageData(width, height, 24, palette);
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(source, sourceOffset + y * sourceStride, data.data, y * data.bytesPerLine, width * 3);
+		}
+		return data;
+	}
+
+	private static ImageData convertByteIndexedImage(WritableRaster raster, IndexColorModel colorModel) {
+		if ((colorModel.getPixelSize() != 8) || !(raster.getSampleModel() instanceof ComponentSampleModel) || !(raster.getDataBuffer() instanceof DataBufferByte)) {
+			return null;
+		}
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
+		if (sampleModel.getPixelStride() != 1) {
+			return null;
+		}
+		byte[] source = dataBuffer.getData();
+		int sourceStride = sampleModel.getScanlineStride();
+		int sourceOffset = dataBuffer.getOffset() + sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY(), 0);
+		int width = raster.getWidth();
+		int height = raster.getHeight();
+		ImageData data = new ImageData(width, height, 8, createPalette(colorModel));
+		data.transparentPixel = colorModel.getTransparentPixel();
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(source, sourceOffset + y * sourceStride, data.data, y * data.bytesPerLine, width);
+		}
+		return data;
+	}
+
+	private static PaletteData createPalette(IndexColorModel colorModel) {
+		int size = colorModel.getMapSize();
+		byte[] reds = new byte[size];
+		byte[] greens = new byte[size];
+		byte[] blues = new byte[size];
+		colorModel.getReds(reds);
+		colorModel.getGreens(greens);
+		colorModel.getBlues(blues);
+		RGB[] rgbs = new RGB[size];
+		for (int i = 0; i < rgbs.length; i++) {
+			rgbs[i] = new RGB(reds[i] & 0xFF, greens[i] & 0xFF, blues[i] & 0xFF);
+		}
+		return new PaletteData(rgbs);
+	}
+
 	/**
 	 * Converts an SWT image representation (ImageData) to its AWT equivalent
 	 * (BufferedImage).
@@ -74,6 +192,9 @@ public class ImageUtils {
 		if (palette.isDirect) {
 			colorModel = new DirectColorModel(data.depth, palette.redMask, palette.greenMask, palette.blueMask);
 			BufferedImage bufferedImage = new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(data.width, data.height), false, null);
+			if (copyDirectPixelsInBulk(data, bufferedImage.getRaster())) {
+				return bufferedImage;
+			}
 			for (int y = 0; y < data.height; y++) {
 				for (int x = 0; x < data.width; x++) {
 					int pixel = data.getPixel(x, y);
@@ -100,6 +221,9 @@ public class ImageUtils {
 			}
 			BufferedImage bufferedImage = new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(data.width, data.height), false, null);
 			WritableRaster raster = bufferedImage.getRaster();
+			if (copyIndexedPixelsInBulk(data, raster)) {
+				return bufferedImage;
+			}
 			int[] pixelArray = new int[1];
 			for (int y = 0; y < data.height; y++) {
 				for (int x = 0; x < data.width; x++) {
@@ -112,4 +236,89 @@ public class ImageUtils {
 		}
 	}
 
+	/**
+	 * Copies the pixels of a 24 or 32 bit direct image with 8 bit color
+	 * channels into the backing array of the given raster, or returns false if
+	 * the layout is not supported.
+	 */
+	private static boolean copyDirectPixelsInBulk(ImageData data, WritableRaster raster) {
+		PaletteData palette = data.palette;
+		if (((data.depth != 24) && (data.depth != 32)) || (Integer.bitCount(palette.redMask) != 8) || (Integer.bitCount(palette.greenMask) != 8) || (Integer.bitCount(palette.blueMask) != 8)) {
+			return false;
+		}
+		if (!(raster.getSampleModel() instanceof SinglePixelPackedSampleModel) || !(raster.getDataBuffer() instanceof DataBufferInt)) {
+			return false;
+		}
+		SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel)raster.getSampleModel();
+		DataBufferInt dataBuffer = (DataBufferInt)raster.getDataBuffer();
+		int[] target = dataBuffer.getData();
+		int targetStride = sampleModel.getScanlineStride();
+		int targetOffset = dataBuffer.getOffset() + sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+		int mask = palette.redMask | palette.greenMask | palette.blueMask;
+		byte[] source = data.data;
+		for (int y = 0; y < data.height; y++) {
+			int sourceIndex = y * data.bytesPerLine;
+			int targetIndex = targetOffset + y * targetStride;
+			for (int x = 0; x < data.width; x++) {
+				int pixel;
+				if (data.depth == 24) {
+					pixel = (source[sourceIndex] & 0xFF) << 16 | (source[sourceIndex + 1] & 0xFF) << 8 | (source[sourceIndex + 2] & 0xFF);
+					sourceIndex += 3;
+				} else {
+					pixel = (source[sourceIndex] & 0xFF) << 24 | (source[sourceIndex + 1] & 0xFF) << 16 | (source[sourceIndex + 2] & 0xFF) << 8 | (source[sourceIndex + 3] & 0xFF);
+					sourceIndex += 4;
+				}
+				target[targetIndex++] = pixel & mask;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the scanlines of a 1, 2, 4 or 8 bit indexed image into the backing
+	 * array of the given raster, or returns false if the layout is not
+	 * supported.
+	 */
+	private static boolean copyIndexedPixelsInBulk(ImageData data, WritableRaster raster) {
+		if (!(raster.getDataBuffer() instanceof DataBufferByte)) {
+			return false;
+		}
+		DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
+		int targetStride;
+		int targetOffset;
+		if ((data.depth == 8) && (raster.getSampleModel() instanceof ComponentSampleModel)) {
+			ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+			if (sampleModel.getPixelStride() != 1) {
+				return false;
+			}
+			targetStride = sampleModel.getScanlineStride();
+			targetOffset = sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY(), 0);
+		} else if (((data.depth == 1) || (data.depth == 2) || (data.depth == 4)) && (raster.getSampleModel() instanceof MultiPixelPackedSampleModel)) {
+			MultiPixelPackedSampleModel sampleModel = (MultiPixelPackedSampleModel)raster.getSampleModel();
+			if ((sampleModel.getPixelBitStride() != data.depth) || (sampleModel.getDataBitOffset() != 0) || (raster.getSampleModelTranslateX() != 0)) {
+				return false;
+			}
+			targetStride = sampleModel.getScanlineStride();
+			targetOffset = sampleModel.getOffset(0, -raster.getSampleModelTranslateY());
+		} else {
+			return false;
+		}
+		byte[] target = dataBuffer.getData();
+		targetOffset += dataBuffer.getOffset();
+		// Both SWT and AWT pack sub-byte pixels with the most significant bits first
+		int bitsPerLine = data.width * data.depth;
+		int fullBytesPerLine = bitsPerLine / 8;
+		int remainingBits = bitsPerLine % 8;
+		int lastByteMask = 0xFF << (8 - remainingBits);
+		for (int y = 0; y < data.height; y++) {
+			int sourceIndex = y * data.bytesPerLine;
+			int targetIndex = targetOffset + y * targetStride;
+			System.arraycopy(data.data, sourceIndex, target, targetIndex, fullBytesPerLine);
+			if (remainingBits != 0) {
+				target[targetIndex + fullBytesPerLine] = (byte)(data.data[sourceIndex + fullBytesPerLine] & lastByteMask);
+			}
+		}
+		return true;
+	}
+
 }
@@ -15,15 +15,20 @@ public class Activator extends AbstractUIPlugin {
 
 	private static Activator instance;
 
+	private ViewedFileChangeListener changeListener;
+
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		instance = this;
-		ResourcesPlugin.getWorkspace().addResourceChangeListener(new ViewedFileChangeListener(), IResourceChangeEvent.POST_CHANGE);
+		changeListener = new ViewedFileChangeListener();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(changeListener, IResourceChangeEvent.POST_CHANGE);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(changeListener);
+		changeListener = null;
 		instance = null;
 		super.stop(context);
 	}
@@ -35,6 +40,13 @@ public class Activator extends AbstractUIPlugin {
 		return instance;
 	}
 
+	/**
+	 * Returns the listener which reloads the changed files in the file views.
+	 */
+	public ViewedFileChangeListener getChangeListener() {
+		return changeListener;
+	}
+
 	/**
 	 * Returns the plug-in's identifier.
 	 */
@@ -6,6 +6,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -75,6 +77,10 @@ public class FileView extends ViewPart implements IShowInTarget{
 
 	private static final String LINKED = "linked"; //$NON-NLS-1$
 
+	private static final int MAX_LIVE_PAGES = Integer.parseInt(System.getProperty("fileViewMaxLivePages", "8")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long MAX_LIVE_MEMORY = Long.parseLong(System.getProperty("fileViewMaxLiveMegabytes", "256")) * 1024 * 1024; //$NON-NLS-1$ //$NON-NLS-2$
+
 	private IFileViewType<? super Composite> type;
 
 	private final List<String> extensions = new ArrayList<String>();
@@ -85,6 +91,17 @@ public class FileView extends ViewPart implements IShowInTarget{
 
 	private final Map<IFile, Composite> pages = new HashMap<IFile, Composite>();
 
+	/**
+	 * The state of the hibernated pages by file, as returned by the type when
+	 * they were disposed.
+	 */
+	private final Map<IFile, Object> hibernatedPages = new HashMap<IFile, Object>();
+
+	/**
+	 * The files of the live pages, the least recently shown first.
+	 */
+	private final LinkedHashSet<IFile> recentFiles = new LinkedHashSet<IFile>();
+
 	private IFile file;
 
 	private Control errorPage;
@@ -227,6 +244,9 @@ public class FileView extends ViewPart implements IShowInTarget{
 		super.dispose();
 		pageBook=null;
 		pages.clear();
+		hibernatedPages.clear();
+		recentFiles.clear();
+		updateOpenFiles();
 		ISelectionService selectionService = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getSelectionService();
 		selectionService.removePostSelectionListener(selectionListener);
 
@@ -254,6 +274,11 @@ public class FileView extends ViewPart implements IShowInTarget{
 				load(file);
 			}
 			refresh();
+			recentFiles.remove(file);
+			if (getPage() != null) {
+				recentFiles.add(file);
+			}
+			hibernatePages();
 			// Fill toolbar for the first time
 			if (!toolbarFilled) {
 				toolbarFilled = true;
@@ -273,18 +298,89 @@ public class FileView extends ViewPart implements IShowInTarget{
 
 	private void load(IFile file) {
 		Composite page = null;
+		boolean hibernated = hibernatedPages.containsKey(file);
+		Object state = hibernatedPages.remove(file);
 		if (file.exists()) {
 			try {
 				page = getType().createPage(pageBook, file);
+				if (hibernated) {
+					getType().pageRevived(page, state);
+				}
 			} catch (Exception e) {
 				Activator.logError("Can't create file view page", e);
 			}
 			pages.put(file, page);
+			updateOpenFiles();
 		} else {
 			showErrorPage();
 		}
 	}
 
+	/**
+	 * Hibernates the least recently shown pages while there are more live
+	 * pages or they hold more memory than allowed. The current page is never
+	 * hibernated.
+	 */
+	private void hibernatePages() {
+		int liveCount = recentFiles.size();
+		long memoryUsage = 0;
+		for (IFile liveFile : recentFiles) {
+			Composite page = pages.get(liveFile);
+			if (page != null) {
+				memoryUsage += getType().getMemoryUsage(page);
+			}
+		}
+		for (Iterator<IFile> iterator = recentFiles.iterator(); iterator.hasNext() && ((liveCount > MAX_LIVE_PAGES) || (memoryUsage > MAX_LIVE_MEMORY));) {
+			IFile liveFile = iterator.next();
+			if (liveFile.equals(getFile())) {
+				continue;
+			}
+			iterator.remove();
+			liveCount--;
+			Composite page = pages.remove(liveFile);
+			if (page != null) {
+				memoryUsage -= getType().getMemoryUsage(page);
+				hibernate(liveFile, page);
+			} else {
+				// The page couldn't be created, it is created again when the file is shown
+				hibernatedPages.put(liveFile, null);
+				updateOpenFiles();
+			}
+		}
+	}
+
+	private void hibernate(IFile file, Composite page) {
+		Object state = null;
+		try {
+			state = getType().pageHibernated(page);
+		} catch (Exception e) {
+			Activator.logError("Can't save state of file view page", e);
+		}
+		page.dispose();
+		hibernatedPages.put(file, state);
+		updateOpenFiles();
+	}
+
+	/**
+	 * Tells the change listener which files have a live page, so that it only
+	 * reloads those.
+	 */
+	private void updateOpenFiles() {
+		Activator activator = Activator.getInstance();
+		if ((activator != null) && (activator.getChangeListener() != null)) {
+			activator.getChangeListener().setOpenFiles(this, pages.keySet());
+		}
+	}
+
+	/**
+	 * Returns the files which have a live or a hibernated page.
+	 */
+	private List<IFile> getOpenFiles() {
+		List<IFile> result = new ArrayList<IFile>(pages.keySet());
+		result.addAll(hibernatedPages.keySet());
+		return result;
+	}
+
 	private void refresh() {
 		if (pageBook != null) {
 			Composite page = getPage();
@@ -419,7 +515,7 @@ public class FileView extends ViewPart implements IShowInTarget{
 		}
 
 		private void closeAll(boolean includeCurrent){
-			List<IFile> files = new ArrayList<IFile>(pages.keySet());
+			List<IFile> files = getOpenFiles();
 			for (IFile iFile : files) {
 				if(includeCurrent || !iFile.equals(getFile())){
 					close(iFile);
@@ -434,7 +530,10 @@ public class FileView extends ViewPart implements IShowInTarget{
 		};
 
 		private void close(IFile file){
+			hibernatedPages.remove(file);
+			recentFiles.remove(file);
 			Composite composite = pages.remove(file);
+			updateOpenFiles();
 			if(composite!=null){
 				getType().pageClosed(composite);
 				if(file.equals(getFile())){
@@ -457,7 +556,7 @@ public class FileView extends ViewPart implements IShowInTarget{
 		@Override
 		List<IAction> getActions() {
 			List<IAction> result=new ArrayList<IAction>();
-			List<IFile> files=new ArrayList<IFile>(pages.keySet());
+			List<IFile> files=getOpenFiles();
 			Collections.sort(files, fileNameComparator);
 			for(IFile file: files){
 				final IFile theFile=file;
@@ -36,6 +36,35 @@ public interface IFileViewType<P extends Composite> {
 	 */
 	void pageClosed(P page);
 
+	/**
+	 * Returns an estimate of the memory held by the given page in bytes, which
+	 * counts towards the limit of the memory held by the live pages of the
+	 * file view.
+	 */
+	default long getMemoryUsage(P page) {
+		return 0;
+	}
+
+	/**
+	 * Called before the given page, which was not shown for a while, is
+	 * disposed to free its resources. Instead of closing the file, the file
+	 * view keeps it in its list of files, and creates a new page for it when
+	 * it is shown again. Returns the state of the page to be restored then,
+	 * or null. Called instead of {@link #pageClosed}, which it calls by
+	 * default.
+	 */
+	default Object pageHibernated(P page) {
+		pageClosed(page);
+		return null;
+	}
+
+	/**
+	 * Called when the given page is created for a hibernated page, with the
+	 * state returned when it was hibernated, before the page is shown.
+	 */
+	default void pageRevived(P page, Object state) {
+	}
+
 	/**
 	 * Returns the file to view based on the given file.
 	 */
@@ -1,5 +1,15 @@
 package org.eclipse.ui.views.file;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -7,6 +17,9 @@ import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IViewReference;
@@ -15,50 +28,229 @@ import org.eclipse.util.UiUtils;
 
 /**
  * Refreshes the file views that display files that were changed in the
- * workspace.
+ * workspace. Only the contents of files with a live page in a file view are
+ * watched, and their extension must be bound to a file view, so the resource
+ * delta is only visited along the paths to those files. Changes are coalesced
+ * per file: the files are reloaded once no change has arrived for a short
+ * quiet period, but at least once per longer delay while changes keep
+ * arriving, so that a build writing a file several times in a burst reloads
+ * it only once. A file is not reloaded if its modification stamp is the same
+ * as when it was last reloaded.
  */
-public class ViewedFileChangeListener implements IResourceChangeListener {
+public class ViewedFileChangeListener implements IResourceChangeListener, Runnable {
+
+	private static final long QUIET_PERIOD = Long.parseLong(System.getProperty("fileViewReloadDelay", "200")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long MAX_DELAY = Long.parseLong(System.getProperty("fileViewReloadMaxDelay", "1000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long NANOSECONDS_PER_MILLISECOND = 1000000;
+
+	/**
+	 * The changed files not reloaded yet. Accessed while holding the lock of
+	 * the listener.
+	 */
+	private final Set<IFile> pendingFiles = new LinkedHashSet<IFile>();
+
+	/**
+	 * The time of the first and the last change not handled yet in
+	 * nanoseconds, 0 if there is none. Accessed while holding the lock of the
+	 * listener.
+	 */
+	private long firstChangeTime = 0;
+
+	private long lastChangeTime = 0;
+
+	/**
+	 * The modification stamps of the open files when they were last reloaded.
+	 * Must be accessed in the UI thread.
+	 */
+	private final Map<IFile, Long> reloadedStamps = new HashMap<IFile, Long>();
+
+	/**
+	 * The file extensions bound to any file view.
+	 */
+	private final Set<String> extensions = new HashSet<String>();
+
+	/**
+	 * The files with a live page by file view. Accessed while holding the lock
+	 * of the listener.
+	 */
+	private final Map<FileView, Set<IFile>> openFiles = new HashMap<FileView, Set<IFile>>();
+
+	/**
+	 * The paths of the open files and of the containers of the open files,
+	 * replaced when the open files change.
+	 */
+	private volatile Set<IPath> openFilePaths = Collections.emptySet();
+
+	private volatile Set<IPath> openContainerPaths = Collections.emptySet();
+
+	public ViewedFileChangeListener() {
+		IConfigurationElement[] configurationElements = Platform.getExtensionRegistry().getConfigurationElementsFor(Activator.getId(), FileView.BINDINGS);
+		for (IConfigurationElement configurationElement : configurationElements) {
+			for (IConfigurationElement extensionElement : configurationElement.getChildren("fileExtension")) { //$NON-NLS-1$
+				extensions.add(extensionElement.getAttribute("extension")); //$NON-NLS-1$
+			}
+		}
+	}
 
-	private static final IResourceDeltaVisitor VISITOR = new IResourceDeltaVisitor() {
+	/**
+	 * Sets the files with a live page in the given file view, and forgets the
+	 * modification stamps of the files no longer open in any file view. Must
+	 * be called in the UI thread.
+	 */
+	public synchronized void setOpenFiles(FileView fileView, Collection<IFile> files) {
+		if (files.isEmpty()) {
+			openFiles.remove(fileView);
+		} else {
+			openFiles.put(fileView, new HashSet<IFile>(files));
+		}
+		Set<IFile> allFiles = new HashSet<IFile>();
+		Set<IPath> filePaths = new HashSet<IPath>();
+		Set<IPath> containerPaths = new HashSet<IPath>();
+		for (Set<IFile> viewFiles : openFiles.values()) {
+			allFiles.addAll(viewFiles);
+			for (IFile file : viewFiles) {
+				filePaths.add(file.getFullPath());
+				for (IPath path = file.getFullPath().removeLastSegments(1); containerPaths.add(path) && !path.isRoot(); path = path.removeLastSegments(1)) {
+					// Adds the ancestors until one is already added
+				}
+			}
+		}
+		openFilePaths = filePaths;
+		openContainerPaths = containerPaths;
+		reloadedStamps.keySet().retainAll(allFiles);
+	}
+
+	/**
+	 * Collects the open files whose contents changed, and skips the parts of
+	 * the delta which contain no open files.
+	 */
+	private class Visitor implements IResourceDeltaVisitor {
+
+		private final Set<IPath> filePaths = openFilePaths;
+
+		private final Set<IPath> containerPaths = openContainerPaths;
+
+		private final List<IFile> changedFiles = new ArrayList<IFile>();
 
 		@Override
 		public boolean visit(IResourceDelta delta) throws CoreException {
-			final IResource resource = delta.getResource();
-			final String extension = resource.getFileExtension();
-			if ((resource instanceof IFile) && (extension != null)) {
-				Display.getDefault().asyncExec(new Runnable() { // The view can be accessed only in UI thread
-
-					@Override
-					public void run() {
-						IWorkbenchPage workbenchPage = UiUtils.getWorkbenchPage();
-						if (workbenchPage != null) {
-							for (IViewReference viewReference : workbenchPage.getViewReferences()) {
-								IViewPart view = viewReference.getView(false);
-								if (view instanceof FileView) {
-									FileView fileView = (FileView)view;
-									IFile file = (IFile)resource;
-									if (fileView.getExtensions().contains(file.getFileExtension())) {
-										fileView.reload(file);
-									}
-								}
-							}
-						}
-					}
-
-				});
+			IResource resource = delta.getResource();
+			if (!(resource instanceof IFile)) {
+				return containerPaths.contains(resource.getFullPath());
 			}
-			return true;
+			if (extensions.contains(resource.getFileExtension()) && filePaths.contains(resource.getFullPath()) && isContentChange(delta)) {
+				changedFiles.add((IFile)resource);
+			}
+			return false;
 		}
 
-	};
+	}
+
+	/**
+	 * Checks whether the given delta changes the contents of its file.
+	 * Additions and removals count as well, as files are often replaced by
+	 * deleting and recreating them.
+	 */
+	private static boolean isContentChange(IResourceDelta delta) {
+		switch (delta.getKind()) {
+		case IResourceDelta.ADDED:
+		case IResourceDelta.REMOVED:
+			return true;
+		case IResourceDelta.CHANGED:
+			return (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0;
+		default:
+			return false;
+		}
+	}
 
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
+		if (openFilePaths.isEmpty()) {
+			return;
+		}
+		Visitor visitor = new Visitor();
 		try {
-			event.getDelta().accept(VISITOR);
+			event.getDelta().accept(visitor);
 		} catch (CoreException e) {
 			Activator.logError("Couldn't refresh the file view, try to reopen it", e);
 		}
+		if (visitor.changedFiles.isEmpty()) {
+			return;
+		}
+		boolean scheduled;
+		synchronized (this) {
+			long now = System.nanoTime();
+			scheduled = firstChangeTime != 0;
+			pendingFiles.addAll(visitor.changedFiles);
+			if (!scheduled) {
+				firstChangeTime = now;
+			}
+			lastChangeTime = now;
+		}
+		if (!scheduled) {
+			Display.getDefault().asyncExec(this); // The view can be accessed only in UI thread
+		}
+	}
+
+	/**
+	 * Reloads the pending files if the quiet period or the maximum delay has
+	 * elapsed, otherwise checks again when it will have.
+	 */
+	@Override
+	public void run() {
+		List<IFile> files;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long delay = Math.min(lastChangeTime + QUIET_PERIOD * NANOSECONDS_PER_MILLISECOND, firstChangeTime + MAX_DELAY * NANOSECONDS_PER_MILLISECOND) - now;
+			if (delay > 0) {
+				Display.getCurrent().timerExec((int)Math.max(1, delay / NANOSECONDS_PER_MILLISECOND), this);
+				return;
+			}
+			files = new ArrayList<IFile>(pendingFiles);
+			pendingFiles.clear();
+			firstChangeTime = 0;
+			lastChangeTime = 0;
+		}
+		reload(files);
+	}
+
+	/**
+	 * Reloads the given files in the file views displaying them, unless their
+	 * modification stamp hasn't changed since they were last reloaded.
+	 */
+	private void reload(List<IFile> files) {
+		IWorkbenchPage workbenchPage = UiUtils.getWorkbenchPage();
+		if (workbenchPage == null) {
+			return;
+		}
+		List<FileView> fileViews = new ArrayList<FileView>();
+		for (IViewReference viewReference : workbenchPage.getViewReferences()) {
+			IViewPart view = viewReference.getView(false);
+			if (view instanceof FileView) {
+				fileViews.add((FileView)view);
+			}
+		}
+		for (IFile file : files) {
+			List<FileView> viewsToReload = new ArrayList<FileView>();
+			for (FileView fileView : fileViews) {
+				if (fileView.getExtensions().contains(file.getFileExtension())) {
+					viewsToReload.add(fileView);
+				}
+			}
+			if (viewsToReload.isEmpty()) {
+				continue;
+			}
+			long stamp = file.getModificationStamp();
+			Long oldStamp = reloadedStamps.put(file, stamp);
+			if ((oldStamp != null) && (oldStamp == stamp)) {
+				continue;
+			}
+			for (FileView fileView : viewsToReload) {
+				fileView.reload(file);
+			}
+		}
 	}
 
 }
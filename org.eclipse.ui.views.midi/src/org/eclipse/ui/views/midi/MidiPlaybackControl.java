@@ -2,9 +2,13 @@ package org.eclipse.ui.views.midi;
 
 import java.text.MessageFormat;
 
+import javax.sound.midi.MetaEventListener;
+import javax.sound.midi.MetaMessage;
 import javax.sound.midi.Sequencer;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.KeyAdapter;
 import org.eclipse.swt.events.KeyEvent;
 import org.eclipse.swt.events.PaintEvent;
@@ -14,6 +18,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.util.AnimationScheduler;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
@@ -49,6 +54,14 @@ public class MidiPlaybackControl extends Composite {
 				drawMarker(e);
 			}
 		});
+		sequencer.addMetaEventListener(endOfTrackListener);
+		addDisposeListener(new DisposeListener() {
+
+			@Override
+			public void widgetDisposed(DisposeEvent e) {
+				sequencer.removeMetaEventListener(endOfTrackListener);
+			}
+		});
 		rewind();
 	}
 
@@ -226,7 +239,7 @@ public class MidiPlaybackControl extends Composite {
 		measureControls.setEditable(false);
 		sequencer.start();
 		playPauseImage("Pause");
-		Display.getDefault().timerExec(0, new Updater());
+		AnimationScheduler.getInstance(getDisplay()).start(updater, this, UPDATE_INTERVAL);
 	}
 
 	public void pause() {
@@ -282,22 +295,57 @@ public class MidiPlaybackControl extends Composite {
 		return result;
 	}
 
-	private class Updater implements Runnable {
+	private static final int UPDATE_INTERVAL = 1000 / 25; // 25 frames per second
+
+	private final Updater updater = new Updater();
+
+	private class Updater implements AnimationScheduler.Animation {
 
 		@Override
-		public void run() {
+		public boolean step(long time) {
 			setValue((int) sequencer.getMicrosecondPosition(), false);
 			if (isFinished()) {
-				pause();
-				resetValue();
-			} else if (isPlaying()) {
-				final int millisecondsPerSecond = 1000;
-				final int framesPerSecond = 25;
-				Display.getDefault().timerExec(millisecondsPerSecond / framesPerSecond, this);
+				finishPlayback();
+				return false;
 			}
+			return isPlaying();
 		}
 	}
 
+	private void finishPlayback() {
+		AnimationScheduler.getInstance(getDisplay()).stop(updater);
+		pause();
+		resetValue();
+	}
+
+	/**
+	 * The type of the meta message sent by the sequencer at the end of the
+	 * sequence.
+	 */
+	private static final int END_OF_TRACK = 0x2F;
+
+	/**
+	 * Finishes the playback at the end of the sequence even while the control
+	 * is hidden, as the updater is suspended then.
+	 */
+	private final MetaEventListener endOfTrackListener = new MetaEventListener() {
+
+		@Override
+		public void meta(MetaMessage message) {
+			if (message.getType() == END_OF_TRACK) {
+				Display.getDefault().asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+						if (!isDisposed() && isFinished()) {
+							finishPlayback();
+						}
+					}
+				});
+			}
+		}
+	};
+
 	// Measure controls
 
 	private class MeasureControls {
@@ -1,7 +1,11 @@
 package org.eclipse.ui.views.pdf;
 
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -10,10 +14,29 @@ public class Activator extends AbstractUIPlugin {
 
 	private static Activator instance;
 
+	private PdfAnnotationTargetResolver annotationTargetResolver;
+
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		instance = this;
+		annotationTargetResolver = new PdfAnnotationTargetResolver();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(annotationTargetResolver, IResourceChangeEvent.POST_CHANGE);
+		Job pruneAnnotationIndexJob = new Job("Pruning point-and-click annotation indexes") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				PdfAnnotationIndex.prune();
+				return Status.OK_STATUS;
+			}
+		};
+		pruneAnnotationIndexJob.setSystem(true);
+		pruneAnnotationIndexJob.schedule();
+	}
+
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(annotationTargetResolver);
+		super.stop(context);
 	}
 
 	/**
@@ -23,6 +46,13 @@ public class Activator extends AbstractUIPlugin {
 		return instance;
 	}
 
+	/**
+	 * Returns the shared resolver of point-and-click annotation targets.
+	 */
+	public static PdfAnnotationTargetResolver getAnnotationTargetResolver() {
+		return getInstance().annotationTargetResolver;
+	}
+
 	/**
 	 * Returns the plug-in's identifier.
 	 */
@@ -0,0 +1,121 @@
+package org.eclipse.ui.views.pdf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * Reads a file mapped into memory, so that the PDF decoder reads it from the
+ * page cache of the operating system without copying it into buffers of its
+ * own. The file itself is closed once it is mapped, but on Windows the
+ * mapping locks the file as long as it exists, so the mapping is released
+ * when the stream is closed instead of when it is garbage collected. The
+ * mapped file must not be truncated while the stream is open.
+ */
+public class MappedPdfInputStream extends ImageInputStreamImpl {
+
+	/**
+	 * The mapped file, or null once the stream is closed.
+	 */
+	private MappedByteBuffer buffer;
+
+	public MappedPdfInputStream(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped into memory");
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, size);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	@Override
+	public synchronized int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		if (streamPos >= buffer.limit()) {
+			return -1;
+		}
+		return buffer.get((int)streamPos++) & 0xFF;
+	}
+
+	@Override
+	public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		if (length == 0) {
+			return 0;
+		}
+		if (streamPos >= buffer.limit()) {
+			return -1;
+		}
+		int count = (int)Math.min(length, buffer.limit() - streamPos);
+		buffer.position((int)streamPos);
+		buffer.get(bytes, offset, count);
+		streamPos += count;
+		return count;
+	}
+
+	@Override
+	public synchronized long length() {
+		return (buffer == null) ? -1 : buffer.limit();
+	}
+
+	/**
+	 * Closes the stream and releases the mapping. Reads are synchronized with
+	 * closing, so the released memory is never accessed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+		super.close();
+		MappedByteBuffer mappedBuffer = buffer;
+		buffer = null;
+		unmap(mappedBuffer);
+	}
+
+	/**
+	 * Releases the given mapping at once. There is no public API for this,
+	 * so the cleaner of the buffer is invoked as the JDK itself does. If that
+	 * fails, the mapping is released when the buffer is garbage collected.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			try {
+				// Java 9 and later
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe", true, ClassLoader.getSystemClassLoader()); //$NON-NLS-1$
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); //$NON-NLS-1$
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			} catch (NoSuchMethodException e) {
+				// Java 8
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner"); //$NON-NLS-1$
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					Method cleanMethod = cleaner.getClass().getMethod("clean"); //$NON-NLS-1$
+					cleanMethod.setAccessible(true);
+					cleanMethod.invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			Activator.logError("Can't release memory-mapped PDF file", e);
+		}
+	}
+
+}
@@ -20,4 +20,37 @@ public class PdfAnnotation {
 
 	public float bottom;
 
+	/**
+	 * The index of the annotation among the annotations of its page in the
+	 * annotation store, or -1 if it is unknown. Not compared by equals.
+	 */
+	public int index = -1;
+
+	/**
+	 * Annotations are equal if all their values are equal, as the annotations
+	 * of a page are created on demand from the annotation store.
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof PdfAnnotation)) {
+			return false;
+		}
+		PdfAnnotation other = (PdfAnnotation)object;
+		return ((fileURI == null) ? (other.fileURI == null) : fileURI.equals(other.fileURI)) && (lineNumber == other.lineNumber) && (columnNumber == other.columnNumber) && (page == other.page) && (Float.compare(left, other.left) == 0) && (Float.compare(top, other.top) == 0) && (Float.compare(right, other.right) == 0) && (Float.compare(bottom, other.bottom) == 0);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = (fileURI == null) ? 0 : fileURI.hashCode();
+		result = 31 * result + lineNumber;
+		result = 31 * result + columnNumber;
+		result = 31 * result + page;
+		result = 31 * result + Float.floatToIntBits(left);
+		result = 31 * result + Float.floatToIntBits(top);
+		return result;
+	}
+
 }
@@ -0,0 +1,211 @@
+package org.eclipse.ui.views.pdf;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import org.eclipse.swt.graphics.Rectangle;
+
+/**
+ * Finds the point-and-click annotation of a page under a point of the
+ * displayed page image. The bounds of the annotations are computed for a zoom
+ * factor and rotation, and are bucketed into a uniform grid of cells, so that
+ * a lookup only tests the annotations overlapping one cell. Immutable, so it
+ * can be built in any thread.
+ */
+public class PdfAnnotationHitIndex {
+
+	/**
+	 * The width and height of a grid cell in pixels.
+	 */
+	private static final int CELL_SIZE = 64;
+
+	private static final int[] NO_ANNOTATIONS = new int[0];
+
+	private final PdfAnnotationStore.Slice annotations;
+
+	private final int page;
+
+	private final float zoom;
+
+	/**
+	 * The x, y, width and height of the bounds of each annotation.
+	 */
+	private final int[] bounds;
+
+	private final int columns;
+
+	private final int rows;
+
+	/**
+	 * The indices of the annotations overlapping each cell, row by row.
+	 */
+	private final int[][] cells;
+
+	/**
+	 * Creates the index of the given annotations of the given page, whose
+	 * image has the given zoom factor, rotation and size in pixels.
+	 */
+	public PdfAnnotationHitIndex(PdfAnnotationStore.Slice annotations, int page, float zoom, int rotation, float pageWidth, float pageHeight) {
+		this.annotations = annotations;
+		this.page = page;
+		this.zoom = zoom;
+		int count = annotations.size();
+		bounds = new int[4 * count];
+		for (int i = 0; i < count; i++) {
+			float left = annotations.getLeft(i) * zoom;
+			float right = annotations.getRight(i) * zoom;
+			float width = Math.abs(right - left);
+			float top = annotations.getTop(i) * zoom;
+			float bottom = annotations.getBottom(i) * zoom;
+			float height = Math.abs(bottom - top);
+			Rectangle2D.Float rectangle = new Rectangle2D.Float(left, top, width, height);
+			transform(rectangle, rotation, pageWidth, pageHeight);
+			bounds[4 * i] = (int)rectangle.x;
+			bounds[4 * i + 1] = (int)rectangle.y;
+			bounds[4 * i + 2] = (int)rectangle.width;
+			bounds[4 * i + 3] = (int)rectangle.height;
+		}
+		columns = Math.max(1, (int)Math.ceil(pageWidth / CELL_SIZE));
+		rows = Math.max(1, (int)Math.ceil(pageHeight / CELL_SIZE));
+		cells = createCells(count);
+	}
+
+	private int[][] createCells(int count) {
+		// The first pass counts the annotations of each cell, the second fills the cells
+		int[] cellSizes = new int[columns * rows];
+		for (int i = 0; i < count; i++) {
+			addToCells(i, cellSizes, null);
+		}
+		int[][] result = new int[columns * rows][];
+		for (int cell = 0; cell < result.length; cell++) {
+			result[cell] = (cellSizes[cell] == 0) ? NO_ANNOTATIONS : new int[cellSizes[cell]];
+		}
+		Arrays.fill(cellSizes, 0);
+		for (int i = 0; i < count; i++) {
+			addToCells(i, cellSizes, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the annotation with the given index in the cells it overlaps,
+	 * and adds it to them if the cells are given.
+	 */
+	private void addToCells(int index, int[] cellSizes, int[][] cells) {
+		int firstColumn = clamp(bounds[4 * index] / CELL_SIZE, columns);
+		int lastColumn = clamp((bounds[4 * index] + bounds[4 * index + 2]) / CELL_SIZE, columns);
+		int firstRow = clamp(bounds[4 * index + 1] / CELL_SIZE, rows);
+		int lastRow = clamp((bounds[4 * index + 1] + bounds[4 * index + 3]) / CELL_SIZE, rows);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				int cell = row * columns + column;
+				if (cells != null) {
+					cells[cell][cellSizes[cell]] = index;
+				}
+				cellSizes[cell]++;
+			}
+		}
+	}
+
+	private static int clamp(int index, int count) {
+		return Math.max(0, Math.min(count - 1, index));
+	}
+
+	public PdfAnnotationStore.Slice getAnnotations() {
+		return annotations;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public float getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * Returns the index of the annotation containing the given point, the
+	 * smallest one if there are several, or -1 if there is none.
+	 */
+	public int find(int x, int y) {
+		if ((x < 0) || (y < 0)) {
+			return -1;
+		}
+		int column = x / CELL_SIZE;
+		int row = y / CELL_SIZE;
+		if ((column >= columns) || (row >= rows)) {
+			return -1;
+		}
+		int result = -1;
+		long resultArea = Long.MAX_VALUE;
+		for (int i : cells[row * columns + column]) {
+			int left = bounds[4 * i];
+			int top = bounds[4 * i + 1];
+			int width = bounds[4 * i + 2];
+			int height = bounds[4 * i + 3];
+			if ((x >= left) && (y >= top) && (x < left + width) && (y < top + height)) {
+				long area = (long)width * height;
+				if (area < resultArea) {
+					result = i;
+					resultArea = area;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the given annotation, or -1 if it is not on the
+	 * page. The index of the annotation in the store is used directly if it
+	 * is known, the annotations of the page are only searched otherwise.
+	 */
+	public int indexOf(PdfAnnotation annotation) {
+		if (annotation.page != page) {
+			return -1;
+		}
+		if ((annotation.index >= 0) && (annotation.index < annotations.size())) {
+			return annotations.matches(annotation.index, annotation) ? annotation.index : -1;
+		}
+		for (int i = 0; i < annotations.size(); i++) {
+			if (annotations.matches(i, annotation)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the bounds of the annotation with the given index in pixels.
+	 */
+	public Rectangle getBounds(int index) {
+		return new Rectangle(bounds[4 * index], bounds[4 * index + 1], bounds[4 * index + 2], bounds[4 * index + 3]);
+	}
+
+	private static void transform(Rectangle2D.Float rectangle, int rotation, float pageWidth, float pageHeight) {
+		float x = rectangle.x;
+		float y = rectangle.y;
+		float width = rectangle.width;
+		float height = rectangle.height;
+		switch (rotation) {
+		case 0:
+			rectangle.y = pageHeight - y;
+			break;
+		case 90:
+			rectangle.x = y - height;
+			rectangle.y = x - width;
+			rectangle.width = height;
+			rectangle.height = width;
+			break;
+		case 180:
+			rectangle.x = pageWidth - x - width;
+			break;
+		case 270:
+			rectangle.x = pageHeight - y;
+			rectangle.y = x - width;
+			rectangle.width = height;
+			rectangle.height = width;
+			break;
+		}
+	}
+
+}
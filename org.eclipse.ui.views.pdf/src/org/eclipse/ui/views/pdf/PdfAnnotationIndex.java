@@ -0,0 +1,268 @@
+package org.eclipse.ui.views.pdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * The point-and-click annotations of a PDF file, persisted in the state
+ * location of the plug-in so that they don't have to be parsed again when an
+ * unchanged file is reopened, even in a later session. An index is only valid
+ * for the version of the file it was created for, which is identified by the
+ * path, modification stamp, size and last modification time of the file.
+ * The index files are named by a digest of the path, and the ones of files
+ * which no longer exist or which were not used for a while are deleted by
+ * {@link #prune}.
+ */
+public class PdfAnnotationIndex {
+
+	private static final int MAGIC = 0x50414958; // PAIX
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String INDEX_FOLDER = "annotationIndex"; //$NON-NLS-1$
+
+	private static final String INDEX_EXTENSION = ".idx"; //$NON-NLS-1$
+
+	/**
+	 * The number of days after which an index which was not read or written
+	 * is deleted.
+	 */
+	private static final long MAX_AGE_DAYS = Long.parseLong(System.getProperty("pdfViewAnnotationIndexMaxAgeDays", "30")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long MILLISECONDS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private final File indexFile;
+
+	private final String path;
+
+	private final long modificationStamp;
+
+	private final long size;
+
+	private final long lastModified;
+
+	/**
+	 * Creates the index of the current version of the given file.
+	 */
+	public PdfAnnotationIndex(IFile file) {
+		File location = file.getLocation().toFile();
+		path = location.getAbsolutePath();
+		modificationStamp = file.getModificationStamp();
+		size = location.length();
+		lastModified = location.lastModified();
+		indexFile = new File(getFolder(), getIndexFileName(path));
+	}
+
+	private static File getFolder() {
+		return Activator.getInstance().getStateLocation().append(INDEX_FOLDER).toFile();
+	}
+
+	/**
+	 * Returns the name of the index file of the PDF file with the given path,
+	 * the SHA-1 digest of the path, so that different paths practically never
+	 * share an index file.
+	 */
+	private static String getIndexFileName(String path) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		StringBuilder result = new StringBuilder();
+		for (byte b : digest.digest(path.getBytes(Charset.forName("UTF-8")))) { //$NON-NLS-1$
+			result.append(String.format("%02x", b & 0xFF)); //$NON-NLS-1$
+		}
+		return result.append(INDEX_EXTENSION).toString();
+	}
+
+	/**
+	 * Deletes the index files of PDF files which no longer exist, the ones not
+	 * read or written for {@link #MAX_AGE_DAYS} days, the ones which can't be
+	 * read or are in another format, and the leftovers of interrupted writes
+	 * older than a day, as a write may be in progress.
+	 */
+	public static void prune() {
+		File[] files = getFolder().listFiles();
+		if (files == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long oldest = now - MAX_AGE_DAYS * MILLISECONDS_PER_DAY;
+		for (File file : files) {
+			if (!file.isFile()) {
+				continue;
+			}
+			boolean stale;
+			if (file.getName().endsWith(INDEX_EXTENSION)) {
+				stale = (file.lastModified() < oldest) || !isIndexOfExistingFile(file);
+			} else {
+				stale = file.lastModified() < now - MILLISECONDS_PER_DAY;
+			}
+			if (stale) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the given index file is in the current format, is named
+	 * after the path stored in it, and the PDF file with that path exists.
+	 */
+	private static boolean isIndexOfExistingFile(File indexFile) {
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if ((input.readInt() != MAGIC) || (input.readInt() != FORMAT_VERSION)) {
+					return false;
+				}
+				String path = input.readUTF();
+				return indexFile.getName().equals(getIndexFileName(path)) && new File(path).isFile();
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the annotations stored in the index to the given store, and returns
+	 * false if there is no valid index for this version of the file.
+	 */
+	public boolean read(PdfAnnotationStore store) {
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if ((input.readInt() != MAGIC) || (input.readInt() != FORMAT_VERSION) || !input.readUTF().equals(path) || (input.readLong() != modificationStamp) || (input.readLong() != size) || (input.readLong() != lastModified)) {
+					return false;
+				}
+				URI[] fileURIs = new URI[input.readInt()];
+				for (int i = 0; i < fileURIs.length; i++) {
+					fileURIs[i] = new URI(input.readUTF());
+				}
+				int pageCount = input.readInt();
+				for (int i = 0; i < pageCount; i++) {
+					int page = input.readInt();
+					int annotationCount = input.readInt();
+					List<PdfAnnotation> annotationsOnPage = new ArrayList<PdfAnnotation>(annotationCount);
+					for (int j = 0; j < annotationCount; j++) {
+						PdfAnnotation annotation = new PdfAnnotation();
+						annotation.page = page;
+						annotation.fileURI = fileURIs[input.readInt()];
+						annotation.lineNumber = input.readInt();
+						annotation.columnNumber = input.readInt();
+						annotation.left = input.readFloat();
+						annotation.top = input.readFloat();
+						annotation.right = input.readFloat();
+						annotation.bottom = input.readFloat();
+						annotationsOnPage.add(annotation);
+					}
+					store.putPage(page, annotationsOnPage);
+				}
+				// Keeps the index from being pruned while it is in use
+				indexFile.setLastModified(System.currentTimeMillis());
+				return true;
+			} finally {
+				input.close();
+			}
+		} catch (FileNotFoundException e) {
+			return false;
+		} catch (IOException e) {
+			Activator.logError("Can't read annotation index", e);
+			return false;
+		} catch (URISyntaxException e) {
+			Activator.logError("Invalid URI in annotation index", e);
+			return false;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			Activator.logError("Corrupt annotation index", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Stores the annotations in the given store, replacing the previous index
+	 * of the file.
+	 */
+	public void write(PdfAnnotationStore store) {
+		File folder = indexFile.getParentFile();
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			Activator.logError("Can't create annotation index folder", null);
+			return;
+		}
+		// File URIs are stored once and referenced by their index
+		int[] pages = store.getLoadedPages();
+		PdfAnnotationStore.Slice[] slices = new PdfAnnotationStore.Slice[pages.length];
+		Map<URI, Integer> fileURIIndices = new HashMap<URI, Integer>();
+		List<URI> fileURIs = new ArrayList<URI>();
+		for (int i = 0; i < pages.length; i++) {
+			slices[i] = store.getPage(pages[i]);
+			for (int j = 0; j < slices[i].size(); j++) {
+				URI fileURI = slices[i].getFileURI(j);
+				if (!fileURIIndices.containsKey(fileURI)) {
+					fileURIIndices.put(fileURI, fileURIs.size());
+					fileURIs.add(fileURI);
+				}
+			}
+		}
+		File temporaryFile = new File(folder, indexFile.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+			try {
+				output.writeInt(MAGIC);
+				output.writeInt(FORMAT_VERSION);
+				output.writeUTF(path);
+				output.writeLong(modificationStamp);
+				output.writeLong(size);
+				output.writeLong(lastModified);
+				output.writeInt(fileURIs.size());
+				for (URI fileURI : fileURIs) {
+					output.writeUTF(fileURI.toString());
+				}
+				output.writeInt(slices.length);
+				for (PdfAnnotationStore.Slice slice : slices) {
+					output.writeInt(slice.getPage());
+					output.writeInt(slice.size());
+					for (int i = 0; i < slice.size(); i++) {
+						output.writeInt(fileURIIndices.get(slice.getFileURI(i)));
+						output.writeInt(slice.getLineNumber(i));
+						output.writeInt(slice.getColumnNumber(i));
+						output.writeFloat(slice.getLeft(i));
+						output.writeFloat(slice.getTop(i));
+						output.writeFloat(slice.getRight(i));
+						output.writeFloat(slice.getBottom(i));
+					}
+				}
+			} finally {
+				output.close();
+			}
+			// Replace the index at once so that a partially written index is never read
+			if ((indexFile.exists() && !indexFile.delete()) || !temporaryFile.renameTo(indexFile)) {
+				temporaryFile.delete();
+				Activator.logError("Can't replace annotation index", null);
+			}
+		} catch (IOException e) {
+			temporaryFile.delete();
+			Activator.logError("Can't write annotation index", e);
+		}
+	}
+
+}
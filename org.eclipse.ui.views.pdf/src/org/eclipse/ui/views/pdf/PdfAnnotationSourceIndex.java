@@ -0,0 +1,128 @@
+package org.eclipse.ui.views.pdf;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the point-and-click annotations pointing to a position in a source
+ * file. The annotations are grouped by file and line, and the annotations of a
+ * line are sorted by column, so a lookup takes logarithmic time. Annotations
+ * are added page by page as they are loaded. Not thread-safe.
+ */
+public class PdfAnnotationSourceIndex {
+
+	/**
+	 * The annotations pointing to a line, sorted by column.
+	 */
+	private static class Line {
+
+		private int[] columns = new int[2];
+
+		private int[] pages = new int[2];
+
+		/**
+		 * The index of each annotation within its page.
+		 */
+		private int[] indices = new int[2];
+
+		private int size = 0;
+
+		public void add(int column, int page, int index) {
+			if (size == columns.length) {
+				columns = Arrays.copyOf(columns, 2 * size);
+				pages = Arrays.copyOf(pages, 2 * size);
+				indices = Arrays.copyOf(indices, 2 * size);
+			}
+			// Annotations are mostly added in column order, so the insertion point is usually at the end
+			int position = size;
+			while ((position > 0) && (columns[position - 1] > column)) {
+				position--;
+			}
+			System.arraycopy(columns, position, columns, position + 1, size - position);
+			System.arraycopy(pages, position, pages, position + 1, size - position);
+			System.arraycopy(indices, position, indices, position + 1, size - position);
+			columns[position] = column;
+			pages[position] = page;
+			indices[position] = index;
+			size++;
+		}
+
+		/**
+		 * Returns the position of the annotation at the given column, or else
+		 * of the nearest one before it, or else of the first one.
+		 */
+		public int find(int column) {
+			int position = Arrays.binarySearch(columns, 0, size, column);
+			if (position >= 0) {
+				// The first of the annotations at the same column
+				while ((position > 0) && (columns[position - 1] == column)) {
+					position--;
+				}
+				return position;
+			}
+			int insertionPoint = -position - 1;
+			return Math.max(0, insertionPoint - 1);
+		}
+
+	}
+
+	private final Map<URI, TreeMap<Integer, Line>> files = new HashMap<URI, TreeMap<Integer, Line>>();
+
+	/**
+	 * Adds the annotations of the given page.
+	 */
+	public void add(PdfAnnotationStore.Slice annotations) {
+		for (int i = 0; i < annotations.size(); i++) {
+			URI fileURI = annotations.getFileURI(i);
+			TreeMap<Integer, Line> lines = files.get(fileURI);
+			if (lines == null) {
+				lines = new TreeMap<Integer, Line>();
+				files.put(fileURI, lines);
+			}
+			int lineNumber = annotations.getLineNumber(i);
+			Line line = lines.get(lineNumber);
+			if (line == null) {
+				line = new Line();
+				lines.put(lineNumber, line);
+			}
+			line.add(annotations.getColumnNumber(i), annotations.getPage(), i);
+		}
+	}
+
+	/**
+	 * Returns the page and the index within the page of the annotation
+	 * pointing to the given position, or else of the nearest one on the same
+	 * line before it, or else on the nearest line, or null if there is no
+	 * annotation pointing to the given file.
+	 */
+	public int[] find(URI fileURI, int lineNumber, int columnNumber) {
+		TreeMap<Integer, Line> lines = files.get(fileURI);
+		if ((lines == null) || lines.isEmpty()) {
+			return null;
+		}
+		Line line = lines.get(lineNumber);
+		if (line == null) {
+			Map.Entry<Integer, Line> previous = lines.floorEntry(lineNumber);
+			Map.Entry<Integer, Line> next = lines.ceilingEntry(lineNumber);
+			if ((previous == null) || ((next != null) && (next.getKey() - lineNumber < lineNumber - previous.getKey()))) {
+				// The first annotation of the next line
+				line = next.getValue();
+				columnNumber = Integer.MIN_VALUE;
+			} else {
+				// The last annotation of the previous line
+				line = previous.getValue();
+				columnNumber = Integer.MAX_VALUE;
+			}
+		}
+		int position = line.find(columnNumber);
+		return new int[] { line.pages[position], line.indices[position] };
+	}
+
+	public void clear() {
+		files.clear();
+	}
+
+}
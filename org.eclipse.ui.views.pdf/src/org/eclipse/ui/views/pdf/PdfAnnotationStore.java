@@ -0,0 +1,322 @@
+package org.eclipse.ui.views.pdf;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The point-and-click annotations of a PDF file in columns of primitive
+ * arrays instead of one object per annotation. The annotations of a page are
+ * appended as a contiguous range, and pages can be added in any order. The
+ * stored values are never modified, so the slices handed out remain valid
+ * while further pages are added. Can be accessed from any thread.
+ */
+public class PdfAnnotationStore {
+
+	/**
+	 * The maximum number of distinct file URIs, as they are referenced by
+	 * unsigned short indices.
+	 */
+	private static final int MAX_FILE_URI_COUNT = 1 << 16;
+
+	/**
+	 * A read-only view of the annotations of a page.
+	 */
+	public static final class Slice {
+
+		private static final Slice EMPTY = new Slice(0, 0, 0, new float[0], new int[0], new short[0], new URI[0]);
+
+		private final int page;
+
+		private final int offset;
+
+		private final int size;
+
+		private final float[] rectangles;
+
+		private final int[] positions;
+
+		private final short[] fileURIIndices;
+
+		private final URI[] fileURIs;
+
+		private Slice(int page, int offset, int size, float[] rectangles, int[] positions, short[] fileURIIndices, URI[] fileURIs) {
+			this.page = page;
+			this.offset = offset;
+			this.size = size;
+			this.rectangles = rectangles;
+			this.positions = positions;
+			this.fileURIIndices = fileURIIndices;
+			this.fileURIs = fileURIs;
+		}
+
+		public int getPage() {
+			return page;
+		}
+
+		/**
+		 * Returns the number of annotations in the slice.
+		 */
+		public int size() {
+			return size;
+		}
+
+		public URI getFileURI(int index) {
+			return fileURIs[fileURIIndices[offset + index] & 0xFFFF];
+		}
+
+		public int getLineNumber(int index) {
+			return positions[2 * (offset + index)];
+		}
+
+		public int getColumnNumber(int index) {
+			return positions[2 * (offset + index) + 1];
+		}
+
+		public float getLeft(int index) {
+			return rectangles[4 * (offset + index)];
+		}
+
+		public float getBottom(int index) {
+			return rectangles[4 * (offset + index) + 1];
+		}
+
+		public float getRight(int index) {
+			return rectangles[4 * (offset + index) + 2];
+		}
+
+		public float getTop(int index) {
+			return rectangles[4 * (offset + index) + 3];
+		}
+
+		/**
+		 * Returns a new annotation object with the values of the annotation with
+		 * the given index.
+		 */
+		public PdfAnnotation get(int index) {
+			PdfAnnotation annotation = new PdfAnnotation();
+			annotation.page = page;
+			annotation.fileURI = getFileURI(index);
+			annotation.lineNumber = getLineNumber(index);
+			annotation.columnNumber = getColumnNumber(index);
+			annotation.left = getLeft(index);
+			annotation.bottom = getBottom(index);
+			annotation.right = getRight(index);
+			annotation.top = getTop(index);
+			annotation.index = index;
+			return annotation;
+		}
+
+		/**
+		 * Checks whether the annotation with the given index has the values of
+		 * the given annotation, without creating an annotation object.
+		 */
+		public boolean matches(int index, PdfAnnotation annotation) {
+			return (annotation.page == page) && getFileURI(index).equals(annotation.fileURI) && (getLineNumber(index) == annotation.lineNumber) && (getColumnNumber(index) == annotation.columnNumber) && (Float.compare(getLeft(index), annotation.left) == 0) && (Float.compare(getBottom(index), annotation.bottom) == 0) && (Float.compare(getRight(index), annotation.right) == 0) && (Float.compare(getTop(index), annotation.top) == 0);
+		}
+
+		/**
+		 * Returns new annotation objects with the values of all annotations in
+		 * the slice.
+		 */
+		public List<PdfAnnotation> toList() {
+			List<PdfAnnotation> result = new ArrayList<PdfAnnotation>(size);
+			for (int i = 0; i < size; i++) {
+				result.add(get(i));
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Left, bottom, right and top of each annotation.
+	 */
+	private float[] rectangles = new float[0];
+
+	/**
+	 * Line and column number of each annotation.
+	 */
+	private int[] positions = new int[0];
+
+	/**
+	 * The index of the file URI of each annotation in the file URI table.
+	 */
+	private short[] fileURIIndices = new short[0];
+
+	private URI[] fileURIs = new URI[0];
+
+	private final Map<URI, Integer> fileURITable = new HashMap<URI, Integer>();
+
+	/**
+	 * The number of stored annotations.
+	 */
+	private int size = 0;
+
+	/**
+	 * The offset and size of the annotations of each loaded page by page
+	 * number, or -1 if the page is not loaded.
+	 */
+	private int[] pageOffsets = new int[0];
+
+	private int[] pageSizes = new int[0];
+
+	/**
+	 * The number of loaded pages.
+	 */
+	private int pageCount = 0;
+
+	private final PdfAnnotationSourceIndex sourceIndex = new PdfAnnotationSourceIndex();
+
+	/**
+	 * Stores the given annotations of the given page, unless the page is
+	 * already loaded.
+	 */
+	public synchronized void putPage(int page, List<PdfAnnotation> annotations) {
+		if (isPageLoaded(page)) {
+			return;
+		}
+		ensureCapacity(size + annotations.size());
+		int offset = size;
+		for (PdfAnnotation annotation : annotations) {
+			int fileURIIndex = getFileURIIndex(annotation.fileURI);
+			if (fileURIIndex < 0) {
+				Activator.logError("Too many files referenced by point-and-click annotations", null);
+				continue;
+			}
+			fileURIIndices[size] = (short)fileURIIndex;
+			positions[2 * size] = annotation.lineNumber;
+			positions[2 * size + 1] = annotation.columnNumber;
+			rectangles[4 * size] = annotation.left;
+			rectangles[4 * size + 1] = annotation.bottom;
+			rectangles[4 * size + 2] = annotation.right;
+			rectangles[4 * size + 3] = annotation.top;
+			size++;
+		}
+		if (page >= pageOffsets.length) {
+			int oldLength = pageOffsets.length;
+			pageOffsets = Arrays.copyOf(pageOffsets, Math.max(page + 1, 2 * oldLength));
+			pageSizes = Arrays.copyOf(pageSizes, pageOffsets.length);
+			Arrays.fill(pageOffsets, oldLength, pageOffsets.length, -1);
+		}
+		pageOffsets[page] = offset;
+		pageSizes[page] = size - offset;
+		pageCount++;
+		sourceIndex.add(getPage(page));
+	}
+
+	private int getFileURIIndex(URI fileURI) {
+		Integer index = fileURITable.get(fileURI);
+		if (index == null) {
+			if (fileURITable.size() >= MAX_FILE_URI_COUNT) {
+				return -1;
+			}
+			index = fileURITable.size();
+			fileURITable.put(fileURI, index);
+			// A new table so that the tables of existing slices are not modified
+			fileURIs = Arrays.copyOf(fileURIs, index + 1);
+			fileURIs[index] = fileURI;
+		}
+		return index;
+	}
+
+	/**
+	 * Grows the arrays to hold at least the given number of annotations. The
+	 * arrays are replaced, not modified, so that existing slices keep their
+	 * contents.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > fileURIIndices.length) {
+			int newCapacity = Math.max(capacity, fileURIIndices.length * 3 / 2 + 16);
+			fileURIIndices = Arrays.copyOf(fileURIIndices, newCapacity);
+			positions = Arrays.copyOf(positions, 2 * newCapacity);
+			rectangles = Arrays.copyOf(rectangles, 4 * newCapacity);
+		}
+	}
+
+	public synchronized boolean isPageLoaded(int page) {
+		return (page >= 0) && (page < pageOffsets.length) && (pageOffsets[page] >= 0);
+	}
+
+	/**
+	 * Returns the numbers of the loaded pages in ascending order.
+	 */
+	public synchronized int[] getLoadedPages() {
+		int[] result = new int[pageCount];
+		int index = 0;
+		for (int page = 0; page < pageOffsets.length; page++) {
+			if (pageOffsets[page] >= 0) {
+				result[index++] = page;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a view of the annotations of the given page, which is empty if
+	 * the page is not loaded.
+	 */
+	public synchronized Slice getPage(int page) {
+		if (!isPageLoaded(page)) {
+			return Slice.EMPTY;
+		}
+		return new Slice(page, pageOffsets[page], pageSizes[page], rectangles, positions, fileURIIndices, fileURIs);
+	}
+
+	/**
+	 * Returns the annotation pointing to the given position of the given file,
+	 * or else the nearest one, or null if no stored annotation points to the
+	 * file. The line number is 0-based.
+	 */
+	public synchronized PdfAnnotation findNearest(URI fileURI, int lineNumber, int columnNumber) {
+		int[] location = sourceIndex.find(fileURI, lineNumber, columnNumber);
+		return (location == null) ? null : getPage(location[0]).get(location[1]);
+	}
+
+	/**
+	 * Returns the total number of stored annotations.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the size of the arrays holding the annotations in bytes.
+	 */
+	public synchronized long getMemoryUsage() {
+		return 4L * rectangles.length + 4L * positions.length + 2L * fileURIIndices.length + 8L * pageOffsets.length;
+	}
+
+	/**
+	 * Moves all annotations into a new store, which is returned, and leaves
+	 * this store empty.
+	 */
+	public synchronized PdfAnnotationStore removeAll() {
+		PdfAnnotationStore result = new PdfAnnotationStore();
+		for (int page : getLoadedPages()) {
+			result.putPage(page, getPage(page).toList());
+		}
+		clear();
+		return result;
+	}
+
+	/**
+	 * Removes all annotations.
+	 */
+	public synchronized void clear() {
+		rectangles = new float[0];
+		positions = new int[0];
+		fileURIIndices = new short[0];
+		fileURIs = new URI[0];
+		fileURITable.clear();
+		size = 0;
+		pageOffsets = new int[0];
+		pageSizes = new int[0];
+		pageCount = 0;
+		sourceIndex.clear();
+	}
+
+}
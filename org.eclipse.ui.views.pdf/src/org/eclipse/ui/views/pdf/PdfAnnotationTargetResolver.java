@@ -0,0 +1,144 @@
+package org.eclipse.ui.views.pdf;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Resolves the paths in point-and-click annotations to the URIs of the target
+ * files, and caches the results for all PDF files, as the links of a score
+ * point to a few source files. Only targets in the workspace are cached, as
+ * only their creation and deletion is noticed: the entries of files which are
+ * added, removed or moved in the workspace are invalidated. The least
+ * recently used entries are dropped above a maximum number. Can be accessed
+ * from any thread.
+ */
+public class PdfAnnotationTargetResolver implements IResourceChangeListener {
+
+	private static class Target {
+
+		/**
+		 * The absolute path of the file.
+		 */
+		private final String location;
+
+		/**
+		 * The URI of the file, or null if it does not exist.
+		 */
+		private final URI uri;
+
+		/**
+		 * Whether the file is in the workspace, so that changes of its
+		 * existence are reported by resource deltas.
+		 */
+		private final boolean inWorkspace;
+
+		public Target(File file) {
+			location = file.getPath();
+			uri = file.exists() ? file.toURI().normalize() : null;
+			inWorkspace = ResourcesPlugin.getWorkspace().getRoot().getFileForLocation(Path.fromOSString(location)) != null;
+		}
+
+	}
+
+	private static final int MAX_TARGETS = Integer.parseInt(System.getProperty("pdfViewAnnotationTargetCacheSize", "1024")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * The resolved targets by their path in the annotations, the least
+	 * recently used first. Accessed while holding its lock.
+	 */
+	private final Map<String, Target> targets = new LinkedHashMap<String, Target>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Target> eldest) {
+			return size() > MAX_TARGETS;
+		}
+
+	};
+
+	/**
+	 * Returns the URIs of the existing files among the given paths, by path.
+	 * Each distinct path in the workspace is checked once until it is
+	 * invalidated or dropped, other paths are checked on each call.
+	 */
+	public Map<String, URI> resolve(Collection<String> paths) {
+		Map<String, URI> result = new HashMap<String, URI>();
+		for (String path : paths) {
+			if (result.containsKey(path)) {
+				continue;
+			}
+			Target target;
+			synchronized (targets) {
+				target = targets.get(path);
+			}
+			if (target == null) {
+				target = new Target(new File(path).getAbsoluteFile());
+				if (target.inWorkspace) {
+					synchronized (targets) {
+						targets.put(path, target);
+					}
+				}
+			}
+			if (target.uri != null) {
+				result.put(path, target.uri);
+			}
+		}
+		return result;
+	}
+
+	private final IResourceDeltaVisitor visitor = new IResourceDeltaVisitor() {
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			IResource resource = delta.getResource();
+			if (resource instanceof IFile) {
+				boolean moved = (delta.getFlags() & (IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO)) != 0;
+				if ((delta.getKind() == IResourceDelta.ADDED) || (delta.getKind() == IResourceDelta.REMOVED) || moved) {
+					IPath location = resource.getLocation();
+					if (location != null) {
+						invalidate(location.toFile().getAbsolutePath());
+					}
+				}
+			}
+			return true;
+		}
+
+	};
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		try {
+			event.getDelta().accept(visitor);
+		} catch (CoreException e) {
+			Activator.logError("Couldn't invalidate point-and-click targets", e);
+		}
+	}
+
+	private void invalidate(String location) {
+		synchronized (targets) {
+			for (Iterator<Target> iterator = targets.values().iterator(); iterator.hasNext();) {
+				if (iterator.next().location.equals(location)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+}
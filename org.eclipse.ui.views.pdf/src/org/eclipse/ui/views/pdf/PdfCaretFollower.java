@@ -0,0 +1,243 @@
+package org.eclipse.ui.views.pdf;
+
+import java.net.URI;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextSelection;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IPathEditorInput;
+import org.eclipse.ui.ISelectionListener;
+import org.eclipse.ui.ISelectionService;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Highlights the point-and-click annotation pointing to the caret of the
+ * active text editor in the PDF view. Caret movements are debounced: the
+ * annotation is looked up once the caret has rested for a short delay, but at
+ * least once per longer delay while it keeps moving, so that typing or key
+ * repeat doesn't change the page and create the hyperlinks on each keystroke.
+ * Moving the caret within the same annotation doesn't highlight it again. Must
+ * be used in the UI thread.
+ */
+public class PdfCaretFollower implements ISelectionListener, Runnable {
+
+	private static final long DELAY = Long.parseLong(System.getProperty("pdfViewFollowCaretDelay", "100")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long MAX_DELAY = Long.parseLong(System.getProperty("pdfViewFollowCaretMaxDelay", "300")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long NANOSECONDS_PER_MILLISECOND = 1000000;
+
+	/**
+	 * The time between caret events and the painting of the highlight they
+	 * caused.
+	 */
+	public static class LatencyStatistics {
+
+		private int count = 0;
+
+		private long total = 0;
+
+		private long max = 0;
+
+		private long last = 0;
+
+		/**
+		 * Adds the given latency in nanoseconds.
+		 */
+		public synchronized void add(long latency) {
+			count++;
+			total += latency;
+			max = Math.max(max, latency);
+			last = latency;
+		}
+
+		/**
+		 * Returns the number of highlights painted.
+		 */
+		public synchronized int getCount() {
+			return count;
+		}
+
+		public synchronized double getAverageMillis() {
+			return (count == 0) ? 0 : (double)total / count / NANOSECONDS_PER_MILLISECOND;
+		}
+
+		public synchronized double getMaxMillis() {
+			return (double)max / NANOSECONDS_PER_MILLISECOND;
+		}
+
+		public synchronized double getLastMillis() {
+			return (double)last / NANOSECONDS_PER_MILLISECOND;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("%d highlights, average %.1f ms, max %.1f ms, last %.1f ms", count, getAverageMillis(), getMaxMillis(), getLastMillis()); //$NON-NLS-1$
+		}
+
+	}
+
+	private final PdfViewType type;
+
+	private boolean enabled;
+
+	/**
+	 * The selection service the listener is added to, or null if it is not
+	 * listening.
+	 */
+	private ISelectionService selectionService;
+
+	private URI pendingFileURI;
+
+	private int pendingLineNumber;
+
+	private int pendingColumnNumber;
+
+	/**
+	 * The time of the first and the last caret event not handled yet in
+	 * nanoseconds, 0 if there is none.
+	 */
+	private long firstPendingTime = 0;
+
+	private long lastPendingTime = 0;
+
+	/**
+	 * The annotation highlighted last.
+	 */
+	private PdfAnnotation highlightedAnnotation;
+
+	private int caretEventCount = 0;
+
+	private int lookupCount = 0;
+
+	private final LatencyStatistics latency = new LatencyStatistics();
+
+	public PdfCaretFollower(PdfViewType type) {
+		this.type = type;
+		enabled = Boolean.parseBoolean(System.getProperty("pdfViewFollowCaret", "false")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		update();
+	}
+
+	/**
+	 * Listens to the caret while enabled and a PDF page is shown.
+	 */
+	public void update() {
+		boolean listen = enabled && (type.getPage() != null);
+		if (listen && (selectionService == null)) {
+			IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+			if (window != null) {
+				selectionService = window.getSelectionService();
+				selectionService.addSelectionListener(this);
+			}
+		} else if (!listen && (selectionService != null)) {
+			selectionService.removeSelectionListener(this);
+			selectionService = null;
+			cancel();
+			highlightedAnnotation = null;
+		}
+	}
+
+	private void cancel() {
+		Display.getCurrent().timerExec(-1, this);
+		pendingFileURI = null;
+		firstPendingTime = 0;
+		lastPendingTime = 0;
+	}
+
+	@Override
+	public void selectionChanged(IWorkbenchPart part, ISelection selection) {
+		if (!(part instanceof ITextEditor) || !(selection instanceof ITextSelection)) {
+			return;
+		}
+		ITextEditor editor = (ITextEditor)part;
+		IEditorInput editorInput = editor.getEditorInput();
+		if (!(editorInput instanceof IPathEditorInput)) {
+			return;
+		}
+		ITextSelection textSelection = (ITextSelection)selection;
+		IDocument document = editor.getDocumentProvider().getDocument(editorInput);
+		if (document == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		caretEventCount++;
+		int lineNumber = textSelection.getStartLine();
+		try {
+			// Point-and-click columns count characters, tabs included
+			pendingColumnNumber = textSelection.getOffset() - document.getLineOffset(lineNumber);
+		} catch (BadLocationException e) {
+			Activator.logError("Invalid caret position", e);
+			return;
+		}
+		pendingFileURI = ((IPathEditorInput)editorInput).getPath().toFile().toURI().normalize();
+		pendingLineNumber = lineNumber;
+		if (firstPendingTime == 0) {
+			firstPendingTime = now;
+		}
+		lastPendingTime = now;
+		long delay = Math.min(lastPendingTime + DELAY * NANOSECONDS_PER_MILLISECOND, firstPendingTime + MAX_DELAY * NANOSECONDS_PER_MILLISECOND) - now;
+		Display display = Display.getCurrent();
+		display.timerExec(-1, this);
+		display.timerExec((int)Math.max(0, delay / NANOSECONDS_PER_MILLISECOND), this);
+	}
+
+	/**
+	 * Highlights the annotation pointing to the last caret position.
+	 */
+	@Override
+	public void run() {
+		URI fileURI = pendingFileURI;
+		long requestTime = lastPendingTime;
+		pendingFileURI = null;
+		firstPendingTime = 0;
+		lastPendingTime = 0;
+		PdfViewPage page = type.getPage();
+		if ((fileURI == null) || (page == null) || page.isDisposed() || !page.isFileOpen()) {
+			return;
+		}
+		lookupCount++;
+		PdfAnnotation annotation = page.findAnnotation(fileURI, pendingLineNumber, pendingColumnNumber);
+		if ((annotation == null) || (annotation.equals(highlightedAnnotation) && (annotation.page == page.getPage()))) {
+			return;
+		}
+		highlightedAnnotation = annotation;
+		page.revealAnnotation(annotation, requestTime, latency);
+	}
+
+	/**
+	 * Returns the number of caret events received.
+	 */
+	public int getCaretEventCount() {
+		return caretEventCount;
+	}
+
+	/**
+	 * Returns the number of annotation lookups the caret events were coalesced
+	 * into.
+	 */
+	public int getLookupCount() {
+		return lookupCount;
+	}
+
+	/**
+	 * Returns the time from the caret event to the painting of the highlight.
+	 */
+	public LatencyStatistics getLatency() {
+		return latency;
+	}
+
+}
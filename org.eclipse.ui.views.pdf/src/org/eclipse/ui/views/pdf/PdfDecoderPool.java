@@ -0,0 +1,177 @@
+package org.eclipse.ui.views.pdf;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jpedal.PdfDecoder;
+
+/**
+ * Shares the PDF decoders of the open PDF view pages, so that only the pages
+ * in the foreground hold a decoder with its caches. A page in the background
+ * releases its decoder, which stays idle with the file of the page open, so
+ * that the page gets it back without reopening and parsing the file if it is
+ * shown again before the decoder is reused for another page. The number of
+ * open decoders is capped by closing idle decoders, the least recently used
+ * first. Pages in the foreground always get a decoder, even above the cap.
+ * Can be accessed from any thread.
+ */
+public class PdfDecoderPool {
+
+	/**
+	 * A decoder of the pool with the file it has open.
+	 */
+	public static class PooledDecoder {
+
+		private final PdfDecoder decoder = new PdfDecoder();
+
+		/**
+		 * The page whose file is open, or null if no file is open.
+		 */
+		private Object owner;
+
+		/**
+		 * The version of the file of the owner which is open.
+		 */
+		private int version;
+
+		/**
+		 * The mapped file read by the decoder, or null if it is not mapped.
+		 */
+		private MappedPdfInputStream mappedFile;
+
+		public PdfDecoder getDecoder() {
+			return decoder;
+		}
+
+		/**
+		 * Checks whether the decoder has the given version of the file of the
+		 * given owner open.
+		 */
+		public boolean isOpen(Object owner, int version) {
+			return (this.owner == owner) && (this.version == version);
+		}
+
+		/**
+		 * Records that the decoder has opened the given version of the file of
+		 * the given owner, optionally mapped into memory, and releases the
+		 * previously mapped file.
+		 */
+		public void setFile(Object owner, int version, MappedPdfInputStream mappedFile) {
+			PdfViewPage.closeMappedFile(this.mappedFile);
+			this.owner = owner;
+			this.version = version;
+			this.mappedFile = mappedFile;
+		}
+
+		/**
+		 * Closes the file opened by the decoder.
+		 */
+		public void close() {
+			if (owner != null) {
+				decoder.closePdfFile();
+			}
+			setFile(null, 0, null);
+		}
+
+	}
+
+	private final int maxOpenCount;
+
+	/**
+	 * The idle decoders, the least recently used first.
+	 */
+	private final List<PooledDecoder> idleDecoders = new ArrayList<PooledDecoder>();
+
+	private int activeCount = 0;
+
+	/**
+	 * The number of acquisitions which got a decoder with the file already
+	 * open.
+	 */
+	private int reopenCount = 0;
+
+	/**
+	 * Creates a pool which keeps at most the given number of decoders open.
+	 */
+	public PdfDecoderPool(int maxOpenCount) {
+		this.maxOpenCount = maxOpenCount;
+	}
+
+	/**
+	 * Returns a decoder for the given owner. The decoder still has the given
+	 * version of the file of the owner open if the owner released it and it
+	 * was not reused since, otherwise the caller has to open the file and
+	 * record it with {@link PooledDecoder#setFile}.
+	 */
+	public synchronized PooledDecoder acquire(Object owner, int version) {
+		activeCount++;
+		for (Iterator<PooledDecoder> iterator = idleDecoders.iterator(); iterator.hasNext();) {
+			PooledDecoder decoder = iterator.next();
+			if (decoder.isOpen(owner, version)) {
+				iterator.remove();
+				reopenCount++;
+				return decoder;
+			}
+		}
+		if (!idleDecoders.isEmpty() && (activeCount + idleDecoders.size() > maxOpenCount)) {
+			// Reuse the least recently used idle decoder instead of opening another one
+			PooledDecoder decoder = idleDecoders.remove(0);
+			decoder.close();
+			return decoder;
+		}
+		return new PooledDecoder();
+	}
+
+	/**
+	 * Takes back the given decoder, which stays open if the cap allows it.
+	 * The decoder must not be used any more.
+	 */
+	public synchronized void release(PooledDecoder decoder) {
+		activeCount--;
+		idleDecoders.add(decoder);
+		while (!idleDecoders.isEmpty() && (activeCount + idleDecoders.size() > maxOpenCount)) {
+			idleDecoders.remove(0).close();
+		}
+	}
+
+	/**
+	 * Closes the given decoder instead of taking it back, and closes the idle
+	 * decoders which have a file of the owner of the given decoder open.
+	 */
+	public synchronized void discard(PooledDecoder decoder) {
+		activeCount--;
+		discardIdle(decoder.owner);
+		decoder.close();
+	}
+
+	/**
+	 * Closes the idle decoders which have a file of the given owner open, so
+	 * that the file is not locked any more.
+	 */
+	public synchronized void discardIdle(Object owner) {
+		for (Iterator<PooledDecoder> iterator = idleDecoders.iterator(); iterator.hasNext();) {
+			PooledDecoder decoder = iterator.next();
+			if ((owner != null) && (decoder.owner == owner)) {
+				iterator.remove();
+				decoder.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of decoders in use or open and idle.
+	 */
+	public synchronized int getOpenCount() {
+		return activeCount + idleDecoders.size();
+	}
+
+	/**
+	 * Returns the number of acquisitions which didn't have to reopen the
+	 * file.
+	 */
+	public synchronized int getReopenCount() {
+		return reopenCount;
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.eclipse.ui.views.pdf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jpedal.PdfDecoder;
+import org.jpedal.io.PdfObjectReader;
+import org.jpedal.objects.raw.FormObject;
+import org.jpedal.objects.raw.PageObject;
+import org.jpedal.objects.raw.PdfDictionary;
+import org.jpedal.objects.raw.PdfObject;
+
+/**
+ * Reads the link annotations of a page straight from the /Annots array of the
+ * page object. Unlike the form renderer of the decoder, it does not create the
+ * form components of all annotations on the page, which is where most of the
+ * time of loading the annotations went. Callers must ensure that the decoder
+ * is used by one thread at a time.
+ */
+public class PdfLinkAnnotationReader {
+
+	private final PdfDecoder pdfDecoder;
+
+	public PdfLinkAnnotationReader(PdfDecoder pdfDecoder) {
+		this.pdfDecoder = pdfDecoder;
+	}
+
+	/**
+	 * Returns the raw objects of the link annotations on the given page, or
+	 * null if the page object can't be read.
+	 */
+	public List<FormObject> readLinks(int page) {
+		PdfObjectReader reader = pdfDecoder.getIO();
+		String pageReference = reader.getReferenceforPage(page);
+		if (pageReference == null) {
+			return null;
+		}
+		PdfObject pageObject = new PageObject(pageReference);
+		// Only the dictionary of the page is needed, not its content stream
+		pageObject.ignoreStream(true);
+		reader.readObject(pageObject);
+		List<FormObject> result = new ArrayList<FormObject>();
+		byte[][] annotationReferences = pageObject.getKeyArray(PdfDictionary.Annots);
+		if (annotationReferences == null) {
+			return result;
+		}
+		for (byte[] annotationReference : annotationReferences) {
+			if ((annotationReference == null) || (annotationReference.length == 0)) {
+				continue;
+			}
+			FormObject annotation = readAnnotation(reader, annotationReference);
+			if (annotation.getParameterConstant(PdfDictionary.Subtype) == PdfDictionary.Link) {
+				result.add(annotation);
+			}
+		}
+		return result;
+	}
+
+	private static FormObject readAnnotation(PdfObjectReader reader, byte[] annotationReference) {
+		String reference = new String(annotationReference);
+		FormObject annotation = new FormObject(reference);
+		if (reference.charAt(reference.length() - 1) == 'R') {
+			reader.readObject(annotation);
+		} else {
+			// The annotation dictionary is direct
+			annotation.setStatus(PdfObject.UNDECODED_REF);
+			annotation.setUnresolvedData(annotationReference, PdfDictionary.Annots);
+			reader.checkResolved(annotation);
+		}
+		return annotation;
+	}
+
+}
@@ -0,0 +1,345 @@
+package org.eclipse.ui.views.pdf;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jpedal.PdfDecoder;
+import org.jpedal.io.PdfFileReader;
+import org.jpedal.io.PdfObjectReader;
+import org.jpedal.objects.raw.FormObject;
+import org.jpedal.objects.raw.PageObject;
+import org.jpedal.objects.raw.PdfDictionary;
+import org.jpedal.objects.raw.PdfObject;
+
+/**
+ * Fingerprints of the pages of a version of a PDF file, which tell which pages
+ * changed between two versions. The rendering of a page is fingerprinted by
+ * the raw bytes of its page dictionary without the /Annots entry and of all
+ * objects it references directly or indirectly, like its content streams,
+ * fonts, images and forms, and its inherited attributes in the page tree. The
+ * /Kids of the page tree nodes are left out, so that the other pages are not
+ * covered. The annotations of a page are fingerprinted by their dictionaries.
+ * Both include the object numbers, so a page counts as changed if the objects
+ * of the file were renumbered.
+ */
+public class PdfPageFingerprints {
+
+	private static final Charset ISO_CHARSET = Charset.forName("ISO-8859-1"); //$NON-NLS-1$
+
+	private static final byte[] ANNOTS_KEY = "/Annots".getBytes(ISO_CHARSET); //$NON-NLS-1$
+
+	private static final byte[] KIDS_KEY = "/Kids".getBytes(ISO_CHARSET); //$NON-NLS-1$
+
+	private static final byte[] STREAM_KEYWORD = "stream".getBytes(ISO_CHARSET); //$NON-NLS-1$
+
+	/**
+	 * An indirect reference in a raw dictionary, which may also match inside
+	 * a string, which only makes the page count as changed more often.
+	 */
+	private static final Pattern REFERENCE = Pattern.compile("(?<![\\w.+-])(\\d+)\\s+(\\d+)\\s+R(?!\\w)"); //$NON-NLS-1$
+
+	/**
+	 * The fingerprints by page number - 1.
+	 */
+	private final long[] renderFingerprints;
+
+	private final long[] annotationFingerprints;
+
+	private PdfPageFingerprints(int pageCount) {
+		renderFingerprints = new long[pageCount];
+		annotationFingerprints = new long[pageCount];
+	}
+
+	/**
+	 * Reads the fingerprints of the pages of the file opened by a decoder one
+	 * page at a time, so that the decoder can be used for other work between
+	 * the pages. The objects shared by the pages, like fonts, are read and
+	 * digested only once. Callers must ensure that the decoder is used by one
+	 * thread at a time.
+	 */
+	public static class Reader {
+
+		private final PdfPageFingerprints result;
+
+		private final MessageDigest digest;
+
+		/**
+		 * Digests the objects, while the digest of a page is in progress.
+		 */
+		private final MessageDigest objectDigest;
+
+		/**
+		 * The objects read so far by reference.
+		 */
+		private final Map<String, RawObject> objects = new HashMap<String, RawObject>();
+
+		public Reader(int pageCount) {
+			result = new PdfPageFingerprints(pageCount);
+			try {
+				digest = MessageDigest.getInstance("MD5"); //$NON-NLS-1$
+				objectDigest = MessageDigest.getInstance("MD5"); //$NON-NLS-1$
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Reads the fingerprints of the given page, 1-based, of the file
+		 * opened by the given decoder.
+		 */
+		public void readPage(PdfDecoder pdfDecoder, int page) {
+			PdfObjectReader reader = pdfDecoder.getIO();
+			PdfFileReader fileReader = reader.getObjectReader();
+			String pageReference = reader.getReferenceforPage(page);
+			if (pageReference == null) {
+				// Counts as changed, like a page which can't be read
+				result.renderFingerprints[page - 1] = page;
+				result.annotationFingerprints[page - 1] = page;
+				return;
+			}
+			// Rendering
+			List<String> pending = new ArrayList<String>();
+			Set<String> visited = new HashSet<String>();
+			pending.add(toReference(pageReference));
+			while (!pending.isEmpty()) {
+				String reference = pending.remove(pending.size() - 1);
+				if (!visited.add(reference)) {
+					continue;
+				}
+				RawObject object = objects.get(reference);
+				if (object == null) {
+					object = readObject(fileReader, reference);
+					objects.put(reference, object);
+				}
+				digest.update(toBytes(object.fingerprint));
+				for (int i = object.references.size() - 1; i >= 0; i--) {
+					pending.add(object.references.get(i));
+				}
+			}
+			result.renderFingerprints[page - 1] = toLong(digest.digest());
+			// Annotations
+			PdfObject pageObject = new PageObject(pageReference);
+			pageObject.ignoreStream(true);
+			reader.readObject(pageObject);
+			byte[][] annotationReferences = pageObject.getKeyArray(PdfDictionary.Annots);
+			if (annotationReferences != null) {
+				for (byte[] annotationReference : annotationReferences) {
+					if ((annotationReference == null) || (annotationReference.length == 0)) {
+						continue;
+					}
+					String reference = new String(annotationReference);
+					byte[] annotation = (reference.charAt(reference.length() - 1) == 'R') ? readRawObject(fileReader, new FormObject(reference), reference) : annotationReference;
+					if (annotation != null) {
+						digest.update(annotation);
+					}
+				}
+			}
+			result.annotationFingerprints[page - 1] = toLong(digest.digest());
+		}
+
+		/**
+		 * Reads the object with the given reference and digests its bytes.
+		 */
+		private RawObject readObject(PdfFileReader fileReader, String reference) {
+			byte[] bytes = readRawObject(fileReader, new FormObject(reference), reference);
+			if (bytes == null) {
+				// Distinguishes a missing object from an empty one
+				return new RawObject(reference.hashCode(), new ArrayList<String>());
+			}
+			int streamStart = getStreamStart(bytes);
+			byte[] dictionary = removeEntry(removeEntry(Arrays.copyOf(bytes, streamStart), ANNOTS_KEY), KIDS_KEY);
+			objectDigest.update(dictionary);
+			objectDigest.update(bytes, streamStart, bytes.length - streamStart);
+			List<String> references = new ArrayList<String>();
+			Matcher matcher = REFERENCE.matcher(new String(dictionary, ISO_CHARSET));
+			while (matcher.find()) {
+				references.add(matcher.group(1) + " " + matcher.group(2) + " R"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return new RawObject(toLong(objectDigest.digest()), references);
+		}
+
+		public PdfPageFingerprints getResult() {
+			return result;
+		}
+
+	}
+
+	/**
+	 * The digest of the raw bytes of an object with the references in its
+	 * dictionary.
+	 */
+	private static class RawObject {
+
+		private final long fingerprint;
+
+		private final List<String> references;
+
+		public RawObject(long fingerprint, List<String> references) {
+			this.fingerprint = fingerprint;
+			this.references = references;
+		}
+
+	}
+
+	/**
+	 * Returns the given reference in the form "id generation R".
+	 */
+	private static String toReference(String reference) {
+		String[] parts = reference.trim().split("\\s+"); //$NON-NLS-1$
+		return (parts.length < 2) ? reference : parts[0] + " " + parts[1] + " R"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Returns the index of the stream data of the given raw object, or its
+	 * length if it has no stream.
+	 */
+	private static int getStreamStart(byte[] object) {
+		for (int index = indexOf(object, STREAM_KEYWORD, 0); index >= 0; index = indexOf(object, STREAM_KEYWORD, index + 1)) {
+			byte previous = (index > 0) ? object[index - 1] : (byte)' ';
+			if ((previous == '>') || Character.isWhitespace(previous)) {
+				return index;
+			}
+		}
+		return object.length;
+	}
+
+	/**
+	 * Returns the bytes of the indirect object with the given reference as
+	 * they are in the file, or null if it can't be read.
+	 */
+	private static byte[] readRawObject(PdfFileReader fileReader, PdfObject object, String reference) {
+		String[] parts = reference.trim().split("\\s+"); //$NON-NLS-1$
+		if (parts.length < 2) {
+			return null;
+		}
+		try {
+			int id = Integer.parseInt(parts[0]);
+			int generation = Integer.parseInt(parts[1]);
+			return fileReader.readObjectAsByteArray(object, fileReader.isCompressed(id, generation), id, generation);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the given raw dictionary without the value of the entry with
+	 * the given key, which is an array or a reference. Nested arrays are
+	 * skipped as a whole; if the value can't be delimited, the dictionary is
+	 * returned unchanged, which only makes the page count as changed more
+	 * often.
+	 */
+	private static byte[] removeEntry(byte[] dictionary, byte[] key) {
+		int start = indexOfKey(dictionary, key);
+		if (start < 0) {
+			return dictionary;
+		}
+		int index = start + key.length;
+		while ((index < dictionary.length) && Character.isWhitespace(dictionary[index])) {
+			index++;
+		}
+		int end = -1;
+		if ((index < dictionary.length) && (dictionary[index] == '[')) {
+			int depth = 0;
+			for (; index < dictionary.length; index++) {
+				if (dictionary[index] == '[') {
+					depth++;
+				} else if ((dictionary[index] == ']') && (--depth == 0)) {
+					end = index + 1;
+					break;
+				}
+			}
+		} else {
+			for (; index < dictionary.length; index++) {
+				if (dictionary[index] == 'R') {
+					end = index + 1;
+					break;
+				}
+			}
+		}
+		if (end < 0) {
+			return dictionary;
+		}
+		byte[] result = Arrays.copyOf(dictionary, dictionary.length - (end - start));
+		System.arraycopy(dictionary, end, result, start, dictionary.length - end);
+		return result;
+	}
+
+	/**
+	 * Returns the index of the given name in the given raw dictionary, which
+	 * is not part of a longer name, or -1 if it is not found.
+	 */
+	private static int indexOfKey(byte[] dictionary, byte[] key) {
+		for (int index = indexOf(dictionary, key, 0); index >= 0; index = indexOf(dictionary, key, index + 1)) {
+			int end = index + key.length;
+			if ((end == dictionary.length) || !Character.isLetterOrDigit(dictionary[end])) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+		for (int i = from; i <= bytes.length - pattern.length; i++) {
+			int j = 0;
+			while ((j < pattern.length) && (bytes[i + j] == pattern[j])) {
+				j++;
+			}
+			if (j == pattern.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static byte[] toBytes(long value) {
+		byte[] result = new byte[8];
+		for (int i = 7; i >= 0; i--) {
+			result[i] = (byte)value;
+			value >>>= 8;
+		}
+		return result;
+	}
+
+	private static long toLong(byte[] digest) {
+		long result = 0;
+		for (int i = 0; i < 8; i++) {
+			result = (result << 8) | (digest[i] & 0xFF);
+		}
+		return result;
+	}
+
+	public int getPageCount() {
+		return renderFingerprints.length;
+	}
+
+	/**
+	 * Checks whether the rendering of the given page, 1-based, differs from
+	 * the given previous version of the file.
+	 */
+	public boolean isRenderingChanged(PdfPageFingerprints previous, int page) {
+		return !isPageInBoth(previous, page) || (renderFingerprints[page - 1] != previous.renderFingerprints[page - 1]);
+	}
+
+	/**
+	 * Checks whether the annotations of the given page, 1-based, differ from
+	 * the given previous version of the file.
+	 */
+	public boolean isAnnotationsChanged(PdfPageFingerprints previous, int page) {
+		return !isPageInBoth(previous, page) || (annotationFingerprints[page - 1] != previous.annotationFingerprints[page - 1]);
+	}
+
+	private boolean isPageInBoth(PdfPageFingerprints previous, int page) {
+		return (previous != null) && (page >= 1) && (page <= getPageCount()) && (page <= previous.getPageCount());
+	}
+
+}
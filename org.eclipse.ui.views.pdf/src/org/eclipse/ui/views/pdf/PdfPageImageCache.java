@@ -0,0 +1,302 @@
+package org.eclipse.ui.views.pdf;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
+
+/**
+ * A bounded cache of rendered PDF page images. The cache is limited by the
+ * total size of the pixel data of its images, and it disposes the least
+ * recently used images first. Images which are in use are never disposed.
+ * Must be accessed in the UI thread.
+ */
+public class PdfPageImageCache {
+
+	/**
+	 * Identifies a rendered page image.
+	 */
+	public static final class Key {
+
+		private final IFile file;
+
+		private final int page;
+
+		private final float zoom;
+
+		private final int rotation;
+
+		public Key(IFile file, int page, float zoom, int rotation) {
+			this.file = file;
+			this.page = page;
+			this.zoom = zoom;
+			this.rotation = rotation;
+		}
+
+		public IFile getFile() {
+			return file;
+		}
+
+		public int getPage() {
+			return page;
+		}
+
+		public float getZoom() {
+			return zoom;
+		}
+
+		public int getRotation() {
+			return rotation;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)object;
+			return file.equals(other.file) && (page == other.page) && (Float.compare(zoom, other.zoom) == 0) && (rotation == other.rotation);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = file.hashCode();
+			result = 31 * result + page;
+			result = 31 * result + Float.floatToIntBits(zoom);
+			result = 31 * result + rotation;
+			return result;
+		}
+
+	}
+
+	private static class Entry {
+
+		private final Image image;
+
+		private final long size;
+
+		private int useCount;
+
+		public Entry(Image image) {
+			this.image = image;
+			Rectangle bounds = image.getBounds();
+			this.size = 4L * bounds.width * bounds.height;
+		}
+
+	}
+
+	/**
+	 * The entries in access order, the least recently used first.
+	 */
+	private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+	/**
+	 * The entries which were removed while their images were in use.
+	 */
+	private final Map<Image, Entry> removedEntries = new IdentityHashMap<Image, Entry>();
+
+	/**
+	 * The entries of changed files which may still be valid, kept aside until
+	 * it is known which pages changed.
+	 */
+	private final Map<Key, Entry> detachedEntries = new HashMap<Key, Entry>();
+
+	/**
+	 * The maximum total size of the cached images in bytes.
+	 */
+	private final long capacity;
+
+	/**
+	 * The current total size of the cached images in bytes.
+	 */
+	private long size;
+
+	public PdfPageImageCache(long capacity) {
+		this.capacity = capacity;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public boolean contains(Key key) {
+		return entries.containsKey(key);
+	}
+
+	public Set<Key> getKeys() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * Returns the key of the cached image of the same page as the given key
+	 * with the nearest other zoom factor, or null if there is no such image.
+	 */
+	public Key findNearestZoom(Key key) {
+		Key result = null;
+		double minDistance = Double.MAX_VALUE;
+		for (Key candidate : entries.keySet()) {
+			if (candidate.file.equals(key.file) && (candidate.page == key.page) && (candidate.rotation == key.rotation) && (candidate.zoom != key.zoom)) {
+				double distance = Math.abs(Math.log(candidate.zoom / key.zoom));
+				if (distance < minDistance) {
+					minDistance = distance;
+					result = candidate;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the given image, which is then owned by the cache.
+	 */
+	public void put(Key key, Image image) {
+		Entry oldEntry = entries.remove(key);
+		if (oldEntry != null) {
+			removeEntry(oldEntry);
+		}
+		Entry entry = new Entry(image);
+		entries.put(key, entry);
+		size += entry.size;
+		evict();
+	}
+
+	/**
+	 * Returns the cached image with the given key and marks it as being in use
+	 * until it is released, or returns null if there is no such image.
+	 */
+	public Image acquire(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		entry.useCount++;
+		return entry.image;
+	}
+
+	/**
+	 * Marks the image previously acquired with the given key as no longer being
+	 * in use by the caller.
+	 */
+	public void release(Key key, Image image) {
+		Entry entry = entries.get(key);
+		Entry detachedEntry = detachedEntries.get(key);
+		if ((entry != null) && (entry.image == image)) {
+			entry.useCount = Math.max(0, entry.useCount - 1);
+			evict();
+		} else if ((detachedEntry != null) && (detachedEntry.image == image)) {
+			detachedEntry.useCount = Math.max(0, detachedEntry.useCount - 1);
+		} else {
+			// The entry was removed or replaced while the image was in use
+			entry = removedEntries.get(image);
+			if (entry != null) {
+				entry.useCount--;
+				if (entry.useCount <= 0) {
+					removedEntries.remove(image);
+					disposeImage(entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the images of the given file, e.g. because it has changed.
+	 */
+	public void invalidate(IFile file) {
+		reattach(file, Collections.<Integer>emptySet());
+		for (Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Key, Entry> mapEntry = iterator.next();
+			if (mapEntry.getKey().getFile().equals(file)) {
+				iterator.remove();
+				removeEntry(mapEntry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Removes the images of the given file like {@link #invalidate}, but keeps
+	 * them aside, so that the images of the pages which turn out to be
+	 * unchanged can be put back with {@link #reattach}. The images detached
+	 * earlier are discarded.
+	 */
+	public void detach(IFile file) {
+		reattach(file, Collections.<Integer>emptySet());
+		for (Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Key, Entry> mapEntry = iterator.next();
+			if (mapEntry.getKey().getFile().equals(file)) {
+				iterator.remove();
+				size -= mapEntry.getValue().size;
+				detachedEntries.put(mapEntry.getKey(), mapEntry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Puts back the detached images of the given pages of the given file,
+	 * unless they were cached again meanwhile, and discards the other detached
+	 * images of the file.
+	 */
+	public void reattach(IFile file, Set<Integer> pages) {
+		for (Iterator<Map.Entry<Key, Entry>> iterator = detachedEntries.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Key, Entry> mapEntry = iterator.next();
+			Key key = mapEntry.getKey();
+			if (key.getFile().equals(file)) {
+				iterator.remove();
+				if (pages.contains(key.getPage()) && !entries.containsKey(key)) {
+					entries.put(key, mapEntry.getValue());
+					size += mapEntry.getValue().size;
+				} else {
+					discardEntry(mapEntry.getValue());
+				}
+			}
+		}
+		evict();
+	}
+
+	private void removeEntry(Entry entry) {
+		size -= entry.size;
+		discardEntry(entry);
+	}
+
+	/**
+	 * Disposes the image of the given entry, which is not in the cache any
+	 * more, once it is not in use.
+	 */
+	private void discardEntry(Entry entry) {
+		if (entry.useCount == 0) {
+			disposeImage(entry);
+		} else {
+			removedEntries.put(entry.image, entry);
+		}
+	}
+
+	private static void disposeImage(Entry entry) {
+		if (!entry.image.isDisposed()) {
+			entry.image.dispose();
+		}
+	}
+
+	private void evict() {
+		for (Iterator<Entry> iterator = entries.values().iterator(); (size > capacity) && iterator.hasNext();) {
+			Entry entry = iterator.next();
+			if (entry.useCount == 0) {
+				iterator.remove();
+				removeEntry(entry);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.eclipse.ui.views.pdf;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.SwingUtilities;
+
+import org.eclipse.swt.graphics.Rectangle;
+import org.jpedal.PdfDecoder;
+import org.jpedal.exception.PdfException;
+import org.jpedal.objects.PdfPageData;
+
+/**
+ * Renders rectangular parts (tiles) of a PDF page, so that only the visible
+ * part of a large page has to be rasterized. The page is decoded once into the
+ * vector display of the decoder, which is then painted for each tile.
+ * Callers must ensure that the decoder is used by one thread at a time.
+ */
+public class PdfPageTileRenderer {
+
+	/**
+	 * The width and height of a tile in pixels.
+	 */
+	public static final int TILE_SIZE = 512;
+
+	private final PdfDecoder pdfDecoder;
+
+	/**
+	 * The page currently decoded into the vector display, 0 if none.
+	 */
+	private int decodedPage = 0;
+
+	public PdfPageTileRenderer(PdfDecoder pdfDecoder) {
+		this.pdfDecoder = pdfDecoder;
+		// The decoder is painted offscreen
+		pdfDecoder.setHardwareAccelerationforScreen(false);
+	}
+
+	/**
+	 * Forgets the decoded page, e.g. because the file was reopened.
+	 */
+	public void reset() {
+		decodedPage = 0;
+	}
+
+	/**
+	 * Renders the part of the given page with the given zoom factor which is
+	 * bounded by the given rectangle in page image coordinates.
+	 */
+	public BufferedImage renderTile(int page, float zoom, final Rectangle bounds) throws PdfException {
+		if (page != decodedPage) {
+			decodedPage = 0;
+			pdfDecoder.decodePage(page);
+			decodedPage = page;
+		}
+		pdfDecoder.setPageParameters(zoom, page);
+		final Dimension size = pdfDecoder.getPreferredSize();
+		final BufferedImage tile = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+		Runnable painter = new Runnable() {
+
+			@Override
+			public void run() {
+				// The decoder is a Swing component which has to be painted in the event dispatch thread
+				pdfDecoder.setSize(size);
+				Graphics2D graphics = tile.createGraphics();
+				try {
+					graphics.setColor(Color.WHITE);
+					graphics.fillRect(0, 0, bounds.width, bounds.height);
+					graphics.translate(-bounds.x, -bounds.y);
+					graphics.setClip(bounds.x, bounds.y, bounds.width, bounds.height);
+					pdfDecoder.paint(graphics);
+				} finally {
+					graphics.dispose();
+				}
+			}
+
+		};
+		try {
+			if (SwingUtilities.isEventDispatchThread()) {
+				painter.run();
+			} else {
+				SwingUtilities.invokeAndWait(painter);
+			}
+		} catch (InterruptedException e) {
+			throw new PdfException("Interrupted while rendering PDF page tile");
+		} catch (InvocationTargetException e) {
+			throw new PdfException("Can't render PDF page tile: " + e.getCause());
+		}
+		return tile;
+	}
+
+	/**
+	 * Returns the size of the image of the given page with the given zoom
+	 * factor in pixels, as rendered by the decoder of the given page data.
+	 */
+	public static Rectangle getPageImageBounds(PdfPageData pageData, int page, float zoom) {
+		int width = (int)(pageData.getCropBoxWidth(page) * zoom);
+		int height = (int)(pageData.getCropBoxHeight(page) * zoom);
+		int rotation = pageData.getRotation(page);
+		if ((rotation == 90) || (rotation == 270)) {
+			return new Rectangle(0, 0, height, width);
+		} else {
+			return new Rectangle(0, 0, width, height);
+		}
+	}
+
+}
@@ -1,19 +1,23 @@
 package org.eclipse.ui.views.pdf;
 
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringEscapeUtils;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -22,19 +26,24 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.ScrolledComposite;
 import org.eclipse.swt.events.FocusEvent;
 import org.eclipse.swt.events.FocusListener;
+import org.eclipse.swt.events.MouseAdapter;
+import org.eclipse.swt.events.MouseEvent;
+import org.eclipse.swt.events.MouseMoveListener;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.util.AnimationScheduler;
 import org.eclipse.swt.util.ImageUtils;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.contexts.IContextActivation;
 import org.eclipse.ui.contexts.IContextService;
 import org.eclipse.ui.views.pdf.PdfViewToolbarManager.FitToAction;
+import org.eclipse.util.TextEditorUtils;
 import org.jpedal.PdfDecoder;
 import org.jpedal.exception.PdfException;
 import org.jpedal.objects.PdfPageData;
@@ -51,20 +60,43 @@ public class PdfViewPage extends ScrolledComposite {
 	private static final String CONTEXT="org.eclipse.ui.views.pdf.context";
 
 	public PdfViewPage(Composite parent, IFile file) throws PdfException {
+		this(parent, file, OpenMode.getDefault());
+	}
+
+	public PdfViewPage(Composite parent, IFile file, OpenMode openMode) throws PdfException {
 		super(parent, SWT.H_SCROLL | SWT.V_SCROLL);
+		this.openMode = openMode;
 		pdfDisplay = new Composite(this, SWT.NONE);
 		pdfDisplay.setBackgroundMode(SWT.INHERIT_FORCE);
 		pdfDisplay.addPaintListener(new PaintListener() {
 			@Override
 			public void paintControl(PaintEvent event) {
 				if (image != null) {
-					event.gc.drawImage(image, 0, 0);
+					// Only the damaged area, which is small while the highlight is animated
+					Rectangle area = image.getBounds().intersection(new Rectangle(event.x, event.y, event.width, event.height));
+					if (!area.isEmpty()) {
+						event.gc.drawImage(image, area.x, area.y, area.width, area.height, area.x, area.y, area.width, area.height);
+					}
+				} else {
+					if (previewImage != null) {
+						paintPreview(event);
+					} else if (tilesKey == null) {
+						// The page is not rendered yet
+						event.gc.setBackground(event.display.getSystemColor(SWT.COLOR_WHITE));
+						event.gc.fillRectangle(event.x, event.y, event.width, event.height);
+					}
+					if (tilesKey != null) {
+						paintTiles(event);
+					}
 				}
 			}
 		});
 		getHorizontalBar().setIncrement(getHorizontalBar().getIncrement() * 4);
 		getVerticalBar().setIncrement(getVerticalBar().getIncrement() * 4);
 		pdfDisplay.addPaintListener(new HyperlinkHighlightPaintListener());
+		HyperlinkMouseListener hyperlinkMouseListener = new HyperlinkMouseListener();
+		pdfDisplay.addMouseListener(hyperlinkMouseListener);
+		pdfDisplay.addMouseMoveListener(hyperlinkMouseListener);
 		setFile(file);
 		addFocusListener(new PdfViewFocusListener());
 		setContent(pdfDisplay);
@@ -87,6 +119,94 @@ public class PdfViewPage extends ScrolledComposite {
 		PdfViewScrollHandler.fixNegativeOriginMouseScrollBug(this);
 	}
 
+	// Opening
+
+	/**
+	 * How the decoders read the PDF file.
+	 */
+	public enum OpenMode {
+
+		/**
+		 * Through the buffered random access file of the decoder.
+		 */
+		FILE,
+
+		/**
+		 * Mapped into memory without copying, see
+		 * {@link MappedPdfInputStream}. The mapping is released as soon as
+		 * the file is closed, so it doesn't keep the file locked on Windows.
+		 */
+		MAPPED;
+
+		/**
+		 * Returns the mode set by the pdfViewOpenMode system property, FILE by
+		 * default.
+		 */
+		public static OpenMode getDefault() {
+			return parse(System.getProperty("pdfViewOpenMode"), FILE); //$NON-NLS-1$
+		}
+
+		/**
+		 * Returns the mode with the given case-insensitive name, or the given
+		 * default mode if there is no such mode.
+		 */
+		public static OpenMode parse(String name, OpenMode defaultMode) {
+			for (OpenMode mode : values()) {
+				if (mode.name().equalsIgnoreCase(name)) {
+					return mode;
+				}
+			}
+			return defaultMode;
+		}
+
+	}
+
+	private final OpenMode openMode;
+
+	public OpenMode getOpenMode() {
+		return openMode;
+	}
+
+	/**
+	 * Opens the file with the given path in the given decoder according to the
+	 * open mode, and returns the mapped file to be closed after the decoder,
+	 * or null if the file is not mapped.
+	 */
+	private MappedPdfInputStream openPdfFile(PdfDecoder decoder, String path) throws PdfException {
+		if (openMode == OpenMode.MAPPED) {
+			MappedPdfInputStream result;
+			try {
+				result = new MappedPdfInputStream(new File(path));
+			} catch (IOException e) {
+				throw new PdfException("Can't map PDF file into memory: " + e.getMessage()); //$NON-NLS-1$
+			}
+			try {
+				decoder.openPdfFileFromStream(result, null);
+			} catch (PdfException e) {
+				closeMappedFile(result);
+				throw e;
+			}
+			return result;
+		} else {
+			decoder.openPdfFile(path);
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the given mapped file, if any. The decoder reading it must be
+	 * closed.
+	 */
+	static void closeMappedFile(MappedPdfInputStream mappedFile) {
+		if (mappedFile != null) {
+			try {
+				mappedFile.close();
+			} catch (IOException e) {
+				Activator.logError("Can't close memory-mapped PDF file", e);
+			}
+		}
+	}
+
 	// Rendering
 
 	/**
@@ -100,60 +220,201 @@ public class PdfViewPage extends ScrolledComposite {
 	private Image image;
 
 	/**
-	 * The PDF engine which renders the pages.
+	 * The cache key of the image of the current page.
+	 */
+	private PdfPageImageCache.Key imageKey;
+
+	private static final long IMAGE_CACHE_SIZE = Long.parseLong(System.getProperty("pdfViewImageCacheMegabytes", "128")) * 1024 * 1024; //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * The rendered page images of all open PDF files.
+	 */
+	private static final PdfPageImageCache imageCache = new PdfPageImageCache(IMAGE_CACHE_SIZE);
+
+	private static final int DECODER_POOL_SIZE = Integer.parseInt(System.getProperty("pdfViewDecoderPoolSize", "4")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * The decoders shared by the pages of all open PDF files.
+	 */
+	private static final PdfDecoderPool decoderPool = new PdfDecoderPool(DECODER_POOL_SIZE);
+
+	/**
+	 * The decoder taken from the pool, or null while the page is in the
+	 * background. Replaced while holding the decoder lock.
+	 */
+	private PdfDecoderPool.PooledDecoder pooledDecoder;
+
+	/**
+	 * The PDF engine which renders the pages, the decoder of the pooled
+	 * decoder, or null while the page is in the background.
+	 */
+	private PdfDecoder pdfDecoder;
+
+	/**
+	 * The page sizes and rotations of the open file, which remain available
+	 * while the decoder is released.
+	 */
+	private PdfPageData pageData = new PdfPageData();
+
+	private int pageCount = 0;
+
+	private boolean inForeground = true;
+
+	/**
+	 * Guards the decoder, which can be used by one thread at a time.
 	 */
-	private final PdfDecoder pdfDecoder = new PdfDecoder();
+	private final Object decoderLock = new Object();
 
 	private final RenderJob renderJob=new RenderJob();
 
+	/**
+	 * Incremented each time the displayed page or zoom factor changes so that
+	 * the results of earlier render requests are not displayed.
+	 */
+	private int renderGeneration = 0;
+
+	/**
+	 * Decodes and rasterizes the current page in the background. The UI thread
+	 * only creates the images from the finished image data.
+	 */
 	private class RenderJob extends Job{
 
-		private BufferedImage pageAsImage;
+		private PdfPageImageCache.Key targetKey;
+
+		/**
+		 * The key of the low resolution preview to render first, or null if
+		 * no preview is needed.
+		 */
+		private PdfPageImageCache.Key targetPreviewKey;
+
+		/**
+		 * Whether the full resolution image is needed, false for tiled pages.
+		 */
+		private boolean targetFullImage;
+
+		private int targetGeneration;
+
+		private int targetFileVersion;
+
+		/**
+		 * Whether the render in flight was canceled, in which case it can't
+		 * be adopted by a request for the same image.
+		 */
+		private boolean canceled;
+
 		public RenderJob() {
 			super("Rendering PDF page");
 		}
 
-		public void obtainImage(){
-			pdfDecoder.setPageParameters(getZoom(), getPage());
-			try {
-				pageAsImage=pdfDecoder.getPageAsImage(getPage());
-			} catch (PdfException e) {
-				Activator.logError("Can't render PDF page", e);
-				pageAsImage=null;
+		/**
+		 * Schedules rendering the image with the given key, optionally preceded
+		 * by the preview with the given key. Must be called in the UI thread.
+		 * Requests are coalesced: a request replaces the target of the previous
+		 * one, a render in flight stops at its next check, and the job runs at
+		 * most once more after it, for the latest target only.
+		 */
+		public void render(PdfPageImageCache.Key key, PdfPageImageCache.Key previewKey, boolean fullImage){
+			synchronized (this) {
+				if((getState()==RUNNING)&&!canceled&&key.equals(targetKey)&&(fullImage==targetFullImage)&&(targetFileVersion==fileVersion)){
+					// The render in flight already produces the requested image
+					targetGeneration=renderGeneration;
+					return;
+				}
 			}
+			cancel();
+			synchronized (this) {
+				targetKey=key;
+				targetPreviewKey=previewKey;
+				targetFullImage=fullImage;
+				targetGeneration=renderGeneration;
+				targetFileVersion=fileVersion;
+			}
+			schedule();
+		}
+
+		@Override
+		protected synchronized void canceling() {
+			canceled=true;
 		}
 
 		@Override
 		protected IStatus run(IProgressMonitor monitor) {
-			if(monitor.isCanceled()||pageAsImage==null){
+			PdfPageImageCache.Key key;
+			PdfPageImageCache.Key previewKey;
+			boolean fullImage;
+			int generation;
+			int version;
+			synchronized (this) {
+				canceled=monitor.isCanceled();
+				key=targetKey;
+				previewKey=targetPreviewKey;
+				fullImage=targetFullImage;
+				generation=targetGeneration;
+				version=targetFileVersion;
+			}
+			if(monitor.isCanceled()||key==null){
 				return Status.CANCEL_STATUS;
 			}
+			if(previewKey!=null){
+				BufferedImage previewAsImage=renderPage(previewKey.getPage(), previewKey.getZoom());
+				if(monitor.isCanceled()){
+					return Status.CANCEL_STATUS;
+				}
+				if(previewAsImage!=null){
+					publish(key, previewKey, ImageUtils.convertBufferedImageToImageData(previewAsImage), generation, version);
+				}
+			}
+			if(fullImage){
+				BufferedImage pageAsImage=renderPage(key.getPage(), key.getZoom());
+				if(monitor.isCanceled()||pageAsImage==null){
+					return Status.CANCEL_STATUS;
+				}
+				publish(key, key, ImageUtils.convertBufferedImageToImageData(pageAsImage), generation, version);
+			}
+			return monitor.isCanceled()?Status.CANCEL_STATUS:Status.OK_STATUS;
+		}
 
-			final BufferedImage awtImage=pageAsImage;
-			Display.getDefault().syncExec(new Runnable() {
+		/**
+		 * Returns the generation of the latest request for the given key if it
+		 * is still the target, or else the given generation. Resolved when the
+		 * image is published in the UI thread, so that a redraw adopting the
+		 * render after the image was posted still displays it.
+		 */
+		private synchronized int getGeneration(PdfPageImageCache.Key key, int generation){
+			return key.equals(targetKey)?targetGeneration:generation;
+		}
+
+		/**
+		 * Caches the rendered image data with the given key in the UI thread,
+		 * and displays it if the request for the given target key is still the
+		 * latest one, including a request that adopted the render.
+		 */
+		private void publish(final PdfPageImageCache.Key key, final PdfPageImageCache.Key renderedKey, final ImageData imageData, final int generation, final int version){
+			Display.getDefault().asyncExec(new Runnable() {
 
 				@Override
 				public void run() {
-					if(pdfDisplay.isDisposed()){
+					if(pdfDisplay.isDisposed()||(version!=fileVersion)){
 						return;
 					}
-					if (image != null) {
-						image.dispose();
+					if(!imageCache.contains(renderedKey)){
+						imageCache.put(renderedKey, new Image(getDisplay(), imageData));
+					}
+					if(getGeneration(key, generation)!=renderGeneration){
+						return;
+					}
+					if(!renderedKey.equals(key)){
+						if(image==null){
+							showPreview(key);
+						}
+					}else{
+						showImage(key);
+						loadAnnotationsJob.schedule();
+						prefetchJob.prefetch(key.getPage(), key.getZoom());
 					}
-					image = new Image(getDisplay(), ImageUtils.convertBufferedImageToImageData(awtImage));
-					int width = awtImage.getWidth();
-					int height = awtImage.getHeight();
-					pdfDisplay.setSize(width, height);
-					align();
-					refreshToolbar();
-					pdfDisplay.redraw();
 				}
 
 			});
-			if(!monitor.isCanceled()){
-				loadAnnotationsJob.schedule();
-			}
-			return monitor.isCanceled()?Status.CANCEL_STATUS:Status.OK_STATUS;
 		}
 	}
 
@@ -169,18 +430,510 @@ public class PdfViewPage extends ScrolledComposite {
 	@Override
 	public void redraw() {
 		if (isFileOpen()) {
-			renderJob.cancel();
+			prefetchJob.cancel();
 			loadAnnotationsJob.cancel();
 			createHyperlinksJob.cancel();
-			waitForJob(loadAnnotationsJob);
-			//waiting for renderJob is not necessary - done by loadAnnotationsJob
-			renderJob.obtainImage();
-			renderJob.schedule();
-			waitForJob(renderJob);
+			//no waiting for the jobs, they are rescheduled after they stop if they are running
+			//the render job is only canceled if the requested image changes, so that a render in flight for the same image is adopted
+			renderGeneration++;
+			PdfPageImageCache.Key key=getImageKey();
+			if(isTiled(getPage(), getZoom())){
+				boolean hasPreview=showPreview(key);
+				showTiles(key);
+				if(hasPreview){
+					renderJob.cancel();
+				}else{
+					renderJob.render(key, getPreviewKey(key), false);
+				}
+				loadAnnotationsJob.schedule();
+			}else if(imageCache.contains(key)){
+				renderJob.cancel();
+				if(prefetchedImageKeys.remove(key)){
+					prefetchedPageTurnCount++;
+				}
+				showImage(key);
+				loadAnnotationsJob.schedule();
+				prefetchJob.prefetch(getPage(), getZoom());
+			}else{
+				boolean hasPreview=showPreview(key);
+				renderJob.render(key, hasPreview?null:getPreviewKey(key), true);
+			}
 			createHyperlinks();
 		}
 	}
 
+	/**
+	 * Renders the given page with the given zoom factor, or returns null if it
+	 * can't be rendered. The decoder is used by one thread at a time, and never
+	 * by the UI thread.
+	 */
+	private BufferedImage renderPage(int page, float zoom) {
+		synchronized (decoderLock) {
+			if (pdfDecoder == null) {
+				return null;
+			}
+			return renderPage(pdfDecoder, page, zoom);
+		}
+	}
+
+	/**
+	 * Renders the given page with the given zoom factor using the given
+	 * decoder, or returns null if it can't be rendered.
+	 */
+	private static BufferedImage renderPage(PdfDecoder decoder, int page, float zoom) {
+		decoder.setPageParameters(zoom, page);
+		try {
+			return decoder.getPageAsImage(page);
+		} catch (PdfException e) {
+			Activator.logError("Can't render PDF page", e);
+			return null;
+		}
+	}
+
+	// Prefetching
+
+	private static final int PREFETCH_DEPTH = Integer.parseInt(System.getProperty("pdfViewPrefetchDepth", "1")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final PrefetchJob prefetchJob = new PrefetchJob();
+
+	/**
+	 * The keys of the prefetched images which have not been shown yet.
+	 */
+	private final Set<PdfPageImageCache.Key> prefetchedImageKeys = new HashSet<PdfPageImageCache.Key>();
+
+	/**
+	 * The number of page changes whose image was already prefetched.
+	 */
+	private int prefetchedPageTurnCount = 0;
+
+	public int getPrefetchedPageTurnCount() {
+		return prefetchedPageTurnCount;
+	}
+
+	/**
+	 * Incremented each time a file is opened so that images prefetched from
+	 * an earlier version of the file are dropped.
+	 */
+	private volatile int fileVersion = 0;
+
+	/**
+	 * Renders the pages around the current page with the current zoom factor
+	 * in the background into the image cache. It uses a decoder of its own
+	 * from the pool, so that it never holds up rendering the visible page.
+	 * The decoder is returned to the pool after each run, and is usually
+	 * still open when the job runs next.
+	 */
+	private class PrefetchJob extends Job {
+
+		private String targetPath;
+
+		private int targetFileVersion;
+
+		/**
+		 * The keys of the images to prefetch, the nearest pages first.
+		 */
+		private List<PdfPageImageCache.Key> targetKeys = new ArrayList<PdfPageImageCache.Key>();
+
+		public PrefetchJob() {
+			super("Prefetching PDF pages");
+			setSystem(true);
+			setPriority(DECORATE);
+		}
+
+		/**
+		 * Schedules prefetching the neighbours of the given page. Must be
+		 * called in the UI thread.
+		 */
+		public void prefetch(int page, float zoom) {
+			cancel();
+			prefetchedImageKeys.retainAll(imageCache.getKeys());
+			List<PdfPageImageCache.Key> keys = new ArrayList<PdfPageImageCache.Key>();
+			for (int distance = 1; distance <= PREFETCH_DEPTH; distance++) {
+				for (int neighbour : new int[] { page + distance, page - distance }) {
+					if (isPageValid(neighbour) && !isTiled(neighbour, zoom)) {
+						PdfPageImageCache.Key key = new PdfPageImageCache.Key(getFile(), neighbour, zoom, pageData.getRotation(neighbour));
+						if (!imageCache.contains(key)) {
+							keys.add(key);
+						}
+					}
+				}
+			}
+			if (keys.isEmpty()) {
+				return;
+			}
+			synchronized (this) {
+				targetPath = getFile().getLocation().toOSString();
+				targetFileVersion = fileVersion;
+				targetKeys = keys;
+			}
+			schedule();
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			String path;
+			int version;
+			List<PdfPageImageCache.Key> keys;
+			synchronized (this) {
+				path = targetPath;
+				version = targetFileVersion;
+				keys = targetKeys;
+			}
+			if (monitor.isCanceled() || closed || (version != fileVersion)) {
+				return Status.CANCEL_STATUS;
+			}
+			PdfDecoderPool.PooledDecoder decoder = decoderPool.acquire(this, version);
+			if (!decoder.isOpen(this, version)) {
+				try {
+					decoder.setFile(this, version, openPdfFile(decoder.getDecoder(), path));
+				} catch (PdfException e) {
+					Activator.logError("Can't open PDF file for prefetching pages", e);
+					decoderPool.discard(decoder);
+					return Status.CANCEL_STATUS;
+				}
+			}
+			try {
+				for (PdfPageImageCache.Key key : keys) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					prefetchPage(decoder.getDecoder(), key, version, monitor);
+				}
+			} finally {
+				decoderPool.release(decoder);
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+
+		private void prefetchPage(PdfDecoder decoder, final PdfPageImageCache.Key key, final int version, IProgressMonitor monitor) {
+			BufferedImage pageAsImage = renderPage(decoder, key.getPage(), key.getZoom());
+			if (pageAsImage == null || monitor.isCanceled()) {
+				return;
+			}
+			final ImageData imageData = ImageUtils.convertBufferedImageToImageData(pageAsImage);
+			Display.getDefault().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					if (pdfDisplay.isDisposed() || (version != fileVersion) || imageCache.contains(key)) {
+						return;
+					}
+					imageCache.put(key, new Image(getDisplay(), imageData));
+					prefetchedImageKeys.add(key);
+				}
+			});
+		}
+
+	}
+
+	private PdfPageImageCache.Key getImageKey() {
+		return new PdfPageImageCache.Key(getFile(), getPage(), getZoom(), getPageRotation());
+	}
+
+	/**
+	 * Displays the cached image with the given key. Must be called in the UI
+	 * thread.
+	 */
+	private void showImage(PdfPageImageCache.Key key) {
+		Image newImage = imageCache.acquire(key);
+		if (newImage == null) {
+			return;
+		}
+		releaseImage();
+		releasePreview();
+		disposeTiles();
+		image = newImage;
+		imageKey = key;
+		Rectangle bounds = image.getBounds();
+		pdfDisplay.setSize(bounds.width, bounds.height);
+		align();
+		refreshToolbar();
+		pdfDisplay.redraw();
+	}
+
+	private void releaseImage() {
+		if (image != null) {
+			imageCache.release(imageKey, image);
+			image = null;
+			imageKey = null;
+		}
+	}
+
+	// Preview
+
+	/**
+	 * The zoom factor of a preview rendered in low resolution relative to the
+	 * zoom factor of the full resolution image.
+	 */
+	private static final float PREVIEW_SCALE = 0.25f;
+
+	/**
+	 * The image displayed scaled to the page size until the full resolution
+	 * image of the current page is rendered.
+	 */
+	private Image previewImage;
+
+	/**
+	 * The cache key of the preview image.
+	 */
+	private PdfPageImageCache.Key previewKey;
+
+	/**
+	 * Displays a preview of the image with the given key immediately: the
+	 * cached image of the same page with the nearest zoom factor. Returns false
+	 * if there is no such image, in which case an empty page is displayed
+	 * until a low resolution preview is rendered. Must be called in the UI
+	 * thread.
+	 */
+	private boolean showPreview(PdfPageImageCache.Key key) {
+		PdfPageImageCache.Key newPreviewKey = imageCache.findNearestZoom(key);
+		Image newPreviewImage = (newPreviewKey == null) ? null : imageCache.acquire(newPreviewKey);
+		releaseImage();
+		releasePreview();
+		previewImage = newPreviewImage;
+		previewKey = newPreviewKey;
+		Rectangle bounds = PdfPageTileRenderer.getPageImageBounds(pageData, key.getPage(), key.getZoom());
+		pdfDisplay.setSize(bounds.width, bounds.height);
+		align();
+		refreshToolbar();
+		pdfDisplay.redraw();
+		return previewImage != null;
+	}
+
+	/**
+	 * Returns the key of the low resolution preview of the image with the
+	 * given key.
+	 */
+	private static PdfPageImageCache.Key getPreviewKey(PdfPageImageCache.Key key) {
+		return new PdfPageImageCache.Key(key.getFile(), key.getPage(), key.getZoom() * PREVIEW_SCALE, key.getRotation());
+	}
+
+	private void releasePreview() {
+		if (previewImage != null) {
+			imageCache.release(previewKey, previewImage);
+			previewImage = null;
+			previewKey = null;
+		}
+	}
+
+	private void paintPreview(PaintEvent event) {
+		Rectangle source = previewImage.getBounds();
+		Point size = pdfDisplay.getSize();
+		event.gc.drawImage(previewImage, 0, 0, source.width, source.height, 0, 0, size.x, size.y);
+	}
+
+	// Tiled rendering
+
+	private static final long TILED_RENDERING_THRESHOLD = Long.parseLong(System.getProperty("pdfViewTiledRenderingMegabytes", "32")) * 1024 * 1024; //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Renders the tiles with the current decoder, or null while the page is
+	 * in the background. Replaced while holding the decoder lock.
+	 */
+	private PdfPageTileRenderer tileRenderer;
+
+	/**
+	 * Identifies the page and zoom factor of the displayed tiles, or null if
+	 * the current page is not displayed in tiles.
+	 */
+	private PdfPageImageCache.Key tilesKey;
+
+	/**
+	 * The rendered tiles of the current page by their column and row.
+	 */
+	private final Map<Point, Image> tiles = new HashMap<Point, Image>();
+
+	private final TileJob tileJob = new TileJob();
+
+	/**
+	 * Checks whether the given page with the given zoom factor is so large
+	 * that only its visible tiles should be rendered.
+	 */
+	private boolean isTiled(int page, float zoom) {
+		Rectangle bounds = PdfPageTileRenderer.getPageImageBounds(pageData, page, zoom);
+		return 4L * bounds.width * bounds.height > TILED_RENDERING_THRESHOLD;
+	}
+
+	/**
+	 * Displays the current page in tiles which are rendered as they become
+	 * visible. Must be called in the UI thread.
+	 */
+	private void showTiles(PdfPageImageCache.Key key) {
+		releaseImage();
+		disposeTiles();
+		tilesKey = key;
+		Rectangle bounds = PdfPageTileRenderer.getPageImageBounds(pageData, key.getPage(), key.getZoom());
+		pdfDisplay.setSize(bounds.width, bounds.height);
+		align();
+		refreshToolbar();
+		pdfDisplay.redraw();
+	}
+
+	private void disposeTiles() {
+		tileJob.cancel();
+		for (Image tile : tiles.values()) {
+			tile.dispose();
+		}
+		tiles.clear();
+		tilesKey = null;
+	}
+
+	private void paintTiles(PaintEvent event) {
+		Point size = pdfDisplay.getSize();
+		int tileSize = PdfPageTileRenderer.TILE_SIZE;
+		int firstColumn = Math.max(0, event.x / tileSize);
+		int lastColumn = Math.min((size.x - 1) / tileSize, (event.x + event.width - 1) / tileSize);
+		int firstRow = Math.max(0, event.y / tileSize);
+		int lastRow = Math.min((size.y - 1) / tileSize, (event.y + event.height - 1) / tileSize);
+		List<Point> missingTiles = new ArrayList<Point>();
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Point tileIndex = new Point(column, row);
+				Image tile = tiles.get(tileIndex);
+				if (tile != null) {
+					event.gc.drawImage(tile, column * tileSize, row * tileSize);
+				} else {
+					if (previewImage == null) {
+						Rectangle bounds = getTileBounds(tileIndex);
+						event.gc.setBackground(event.display.getSystemColor(SWT.COLOR_WHITE));
+						event.gc.fillRectangle(bounds);
+					}
+					missingTiles.add(tileIndex);
+				}
+			}
+		}
+		disposeInvisibleTiles();
+		if (!missingTiles.isEmpty()) {
+			tileJob.request(tilesKey, missingTiles);
+		}
+	}
+
+	/**
+	 * Returns the visible area of the page in page image coordinates.
+	 */
+	private Rectangle getVisiblePageArea() {
+		Rectangle clientArea = getClientArea();
+		Point location = pdfDisplay.getLocation();
+		return new Rectangle(clientArea.x - location.x, clientArea.y - location.y, clientArea.width, clientArea.height);
+	}
+
+	private Rectangle getTileBounds(Point tileIndex) {
+		int tileSize = PdfPageTileRenderer.TILE_SIZE;
+		Point size = pdfDisplay.getSize();
+		int x = tileIndex.x * tileSize;
+		int y = tileIndex.y * tileSize;
+		return new Rectangle(x, y, Math.min(tileSize, size.x - x), Math.min(tileSize, size.y - y));
+	}
+
+	/**
+	 * Disposes the tiles which are farther than one tile from the visible area,
+	 * so that memory usage depends on the size of the view instead of the size
+	 * of the page.
+	 */
+	private void disposeInvisibleTiles() {
+		int tileSize = PdfPageTileRenderer.TILE_SIZE;
+		Rectangle visibleArea = getVisiblePageArea();
+		Rectangle retainedArea = new Rectangle(visibleArea.x - tileSize, visibleArea.y - tileSize, visibleArea.width + 2 * tileSize, visibleArea.height + 2 * tileSize);
+		for (Iterator<Map.Entry<Point, Image>> iterator = tiles.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Point, Image> entry = iterator.next();
+			if (!getTileBounds(entry.getKey()).intersects(retainedArea)) {
+				entry.getValue().dispose();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Renders the requested tiles of the current page in the background.
+	 */
+	private class TileJob extends Job {
+
+		private PdfPageImageCache.Key targetKey;
+
+		private int targetFileVersion;
+
+		private final Map<Point, Rectangle> pendingTiles = new LinkedHashMap<Point, Rectangle>();
+
+		public TileJob() {
+			super("Rendering PDF page tiles");
+			setSystem(true);
+		}
+
+		/**
+		 * Schedules rendering the given tiles of the page identified by the given
+		 * key. Must be called in the UI thread.
+		 */
+		public void request(PdfPageImageCache.Key key, List<Point> tileIndices) {
+			synchronized (this) {
+				if (!key.equals(targetKey) || (targetFileVersion != fileVersion)) {
+					pendingTiles.clear();
+					targetKey = key;
+					targetFileVersion = fileVersion;
+				}
+				for (Point tileIndex : tileIndices) {
+					pendingTiles.put(tileIndex, getTileBounds(tileIndex));
+				}
+			}
+			schedule();
+		}
+
+		@Override
+		protected void canceling() {
+			synchronized (this) {
+				pendingTiles.clear();
+				targetKey = null;
+			}
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (!monitor.isCanceled()) {
+				final PdfPageImageCache.Key key;
+				final int version;
+				final Point tileIndex;
+				final Rectangle bounds;
+				synchronized (this) {
+					if (pendingTiles.isEmpty()) {
+						return Status.OK_STATUS;
+					}
+					key = targetKey;
+					version = targetFileVersion;
+					Iterator<Map.Entry<Point, Rectangle>> iterator = pendingTiles.entrySet().iterator();
+					Map.Entry<Point, Rectangle> entry = iterator.next();
+					iterator.remove();
+					tileIndex = entry.getKey();
+					bounds = entry.getValue();
+				}
+				BufferedImage tile;
+				synchronized (decoderLock) {
+					if (tileRenderer == null) {
+						return Status.CANCEL_STATUS;
+					}
+					try {
+						tile = tileRenderer.renderTile(key.getPage(), key.getZoom(), bounds);
+					} catch (PdfException e) {
+						Activator.logError("Can't render PDF page", e);
+						return Status.CANCEL_STATUS;
+					}
+				}
+				final ImageData tileData = ImageUtils.convertBufferedImageToImageData(tile);
+				Display.getDefault().asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+						if (pdfDisplay.isDisposed() || !key.equals(tilesKey) || (version != fileVersion) || tiles.containsKey(tileIndex)) {
+							return;
+						}
+						tiles.put(tileIndex, new Image(getDisplay(), tileData));
+						pdfDisplay.redraw(bounds.x, bounds.y, bounds.width, bounds.height, false);
+					}
+
+				});
+			}
+			return Status.CANCEL_STATUS;
+		}
+
+	}
+
 	private void align() {
 		Rectangle clientArea = getClientArea();
 		Point size = pdfDisplay.getSize();
@@ -190,76 +943,377 @@ public class PdfViewPage extends ScrolledComposite {
 		pdfDisplay.setLocation(left, top);
 	}
 
-	@Override
-	public void setBounds(Rectangle rect) {
-		super.setBounds(rect);
-		align();
+	@Override
+	public void setBounds(Rectangle rect) {
+		super.setBounds(rect);
+		align();
+	}
+
+	@Override
+	public void setOrigin(Point origin) {
+		super.setOrigin(origin);
+		align();
+	}
+
+	// File handling
+
+	/**
+	 * The open PDF file.
+	 */
+	private IFile file;
+
+	public IFile getFile() {
+		return file;
+	}
+
+	private String getFileName(){
+		return getFile().getFullPath().toOSString();
+	}
+
+	public void setFile(IFile file) throws PdfException {
+		prefetchJob.cancel();
+		waitForJob(prefetchJob);
+		// The decoder of the prefetch job has the previous version open
+		decoderPool.discardIdle(prefetchJob);
+		disposeTiles();
+		fileVersion++;
+		String path = file.getLocation().toOSString();
+		if (pooledDecoder == null) {
+			acquireDecoder(path);
+		} else {
+			synchronized (decoderLock) {
+				try {
+					// The decoder closes the previous file when opening the new one
+					pooledDecoder.setFile(this, fileVersion, openPdfFile(pdfDecoder, path));
+				} catch (PdfException e) {
+					pooledDecoder.setFile(null, 0, null);
+					throw e;
+				}
+				tileRenderer.reset();
+			}
+			readPageData();
+		}
+		if (!inForeground) {
+			// The file was only opened to read the page data
+			releaseDecoder();
+		}
+		prefetchedImageKeys.clear();
+		// The cached data of the pages which turn out to be unchanged is reused
+		boolean fingerprinted = file.equals(this.file) && inForeground;
+		reloadedFingerprints = fingerprinted ? fingerprints : null;
+		fingerprints = null;
+		if (reloadedFingerprints != null) {
+			imageCache.detach(file);
+		} else {
+			imageCache.invalidate(file);
+		}
+		int pageToSet=1;
+		if (file.equals(this.file)) {
+			pageToSet=getPage();
+		} else {
+			this.file = file;
+		}
+		resetAnnotationsJob.schedule();
+		waitForJob(resetAnnotationsJob);
+		annotationIndex=new PdfAnnotationIndex(file);
+		annotationIndexRead=false;
+		annotationIndexWritten=false;
+		if (fingerprinted) {
+			fingerprintJob.compute(file, fileVersion);
+		}
+		setPage(pageToSet);
+	}
+
+	public void reload() throws PdfException {
+		setFile(getFile());
+	}
+
+	// Incremental reload
+
+	/**
+	 * The fingerprints of the pages of the open version of the file, or null
+	 * if they are not computed yet. They are only computed when the file is
+	 * reloaded in the foreground, so that opening a file doesn't pay for
+	 * them, and the cached data is reused from the second reload on.
+	 */
+	private PdfPageFingerprints fingerprints;
+
+	/**
+	 * The fingerprints and the annotations of the previous version of the
+	 * file while a reload is waiting for the fingerprints of the new version,
+	 * otherwise null.
+	 */
+	private PdfPageFingerprints reloadedFingerprints;
+
+	private PdfAnnotationStore reloadedAnnotations;
+
+	private final FingerprintJob fingerprintJob = new FingerprintJob();
+
+	/**
+	 * Computes the fingerprints of the pages of a version of the file with the
+	 * decoder of the page, so that they are known when the file is reloaded.
+	 * The decoder lock is held for one page at a time, so that rendering
+	 * waits for at most one page.
+	 */
+	private class FingerprintJob extends Job {
+
+		private IFile targetFile;
+
+		private int targetFileVersion;
+
+		/**
+		 * The length and the modification time of the file when it was
+		 * opened, which tell whether it has changed since.
+		 */
+		private long targetLength;
+
+		private long targetLastModified;
+
+		public FingerprintJob() {
+			super("Fingerprinting PDF pages");
+			setSystem(true);
+		}
+
+		/**
+		 * Schedules computing the fingerprints of the given version of the
+		 * given file.
+		 */
+		public void compute(IFile file, int version) {
+			File location = file.getLocation().toFile();
+			synchronized (this) {
+				targetFile = file;
+				targetFileVersion = version;
+				targetLength = location.length();
+				targetLastModified = location.lastModified();
+			}
+			cancel();
+			schedule();
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			IFile file;
+			final int version;
+			long length;
+			long lastModified;
+			synchronized (this) {
+				file = targetFile;
+				version = targetFileVersion;
+				length = targetLength;
+				lastModified = targetLastModified;
+			}
+			if (monitor.isCanceled() || (version != fileVersion)) {
+				return Status.CANCEL_STATUS;
+			}
+			PdfPageFingerprints.Reader reader = null;
+			for (int page = 1; (reader == null) || (page <= reader.getResult().getPageCount()); page++) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				synchronized (decoderLock) {
+					if ((pooledDecoder == null) || !pooledDecoder.isOpen(PdfViewPage.this, version)) {
+						// The page went to the background, so the kept data is discarded
+						publish(null, version);
+						return Status.CANCEL_STATUS;
+					}
+					if (reader == null) {
+						reader = new PdfPageFingerprints.Reader(pdfDecoder.getPageCount());
+					}
+					if (page <= reader.getResult().getPageCount()) {
+						reader.readPage(pdfDecoder, page);
+					}
+				}
+			}
+			// The fingerprints must not describe a later version than the one displayed
+			File location = file.getLocation().toFile();
+			if (monitor.isCanceled() || (location.length() != length) || (location.lastModified() != lastModified)) {
+				return Status.CANCEL_STATUS;
+			}
+			publish(reader.getResult(), version);
+			return Status.OK_STATUS;
+		}
+
+		private void publish(final PdfPageFingerprints result, final int version) {
+			Display.getDefault().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					applyFingerprints(result, version);
+				}
+			});
+		}
+
 	}
 
-	@Override
-	public void setOrigin(Point origin) {
-		super.setOrigin(origin);
-		align();
+	/**
+	 * Records the given fingerprints of the given version of the file, null if
+	 * they couldn't be computed. If the file was reloaded, puts back the
+	 * cached images and the annotations of the pages which are unchanged since
+	 * the previous version, and discards the others. Must be called in the UI
+	 * thread.
+	 */
+	private void applyFingerprints(PdfPageFingerprints newFingerprints, int version) {
+		if (isDisposed() || (version != fileVersion)) {
+			return;
+		}
+		fingerprints = newFingerprints;
+		PdfPageFingerprints previousFingerprints = reloadedFingerprints;
+		PdfAnnotationStore previousAnnotations = reloadedAnnotations;
+		reloadedFingerprints = null;
+		reloadedAnnotations = null;
+		if (previousFingerprints == null) {
+			return;
+		}
+		if (newFingerprints == null) {
+			imageCache.reattach(getFile(), Collections.<Integer>emptySet());
+			return;
+		}
+		Set<Integer> unchangedPages = new HashSet<Integer>();
+		for (int page = 1; page <= newFingerprints.getPageCount(); page++) {
+			if (!newFingerprints.isRenderingChanged(previousFingerprints, page)) {
+				unchangedPages.add(page);
+			}
+			if ((previousAnnotations != null) && previousAnnotations.isPageLoaded(page) && !newFingerprints.isAnnotationsChanged(previousFingerprints, page)) {
+				annotations.putPage(page, previousAnnotations.getPage(page).toList());
+			}
+		}
+		imageCache.reattach(getFile(), unchangedPages);
 	}
 
-	// File handling
-
 	/**
-	 * The open PDF file.
+	 * Checks whether the file is open in the decoder of the page, which is
+	 * not the case while the page is in the background.
 	 */
-	private IFile file;
+	public boolean isFileOpen() {
+		return (pdfDecoder != null) && pdfDecoder.isOpen();
+	}
 
-	public IFile getFile() {
-		return file;
+	/**
+	 * Takes a decoder from the pool and opens the file with the given path in
+	 * it, unless the decoder still has the current version of the file open.
+	 * Returns false if the page already has a decoder. Must be called in the
+	 * UI thread.
+	 */
+	private boolean acquireDecoder(String path) throws PdfException {
+		if (pooledDecoder != null) {
+			return false;
+		}
+		PdfDecoderPool.PooledDecoder newDecoder = decoderPool.acquire(this, fileVersion);
+		if (!newDecoder.isOpen(this, fileVersion)) {
+			try {
+				newDecoder.setFile(this, fileVersion, openPdfFile(newDecoder.getDecoder(), path));
+			} catch (PdfException e) {
+				decoderPool.discard(newDecoder);
+				throw e;
+			}
+		}
+		synchronized (decoderLock) {
+			pooledDecoder = newDecoder;
+			pdfDecoder = newDecoder.getDecoder();
+			tileRenderer = new PdfPageTileRenderer(pdfDecoder);
+		}
+		readPageData();
+		return true;
 	}
 
-	private String getFileName(){
-		return getFile().getFullPath().toOSString();
+	private void readPageData() {
+		pageData = pdfDecoder.getPdfPageData();
+		pageCount = pdfDecoder.getPageCount();
 	}
 
-	public void setFile(IFile file) throws PdfException {
-		if(pdfDecoder==null){
+	/**
+	 * Stops using the decoder and returns it to the pool, or closes it if the
+	 * given flag is set. Must be called in the UI thread.
+	 */
+	private void releaseDecoder(boolean close) {
+		if (pooledDecoder == null) {
 			return;
 		}
-		pdfDecoder.openPdfFile(file.getLocation().toOSString());
-		int pageToSet=1;
-		if (file.equals(this.file)) {
-			pageToSet=getPage();
+		prefetchJob.cancel();
+		renderJob.cancel();
+		tileJob.cancel();
+		PdfDecoderPool.PooledDecoder oldDecoder;
+		// Waits for the job using the decoder, if any, to finish its current page or tile
+		synchronized (decoderLock) {
+			oldDecoder = pooledDecoder;
+			pooledDecoder = null;
+			pdfDecoder = null;
+			tileRenderer = null;
+		}
+		if (close) {
+			decoderPool.discard(oldDecoder);
 		} else {
-			this.file = file;
+			decoderPool.release(oldDecoder);
 		}
-		resetAnnotationsJob.schedule();
-		waitForJob(resetAnnotationsJob);
-		setPage(pageToSet);
 	}
 
-	public void reload() throws PdfException {
-		setFile(getFile());
+	private void releaseDecoder() {
+		releaseDecoder(false);
 	}
 
-	public boolean isFileOpen() {
-		return pdfDecoder.isOpen();
-	}
+	/**
+	 * Set when the file is closed, after which the jobs of the page must not
+	 * open it again.
+	 */
+	private volatile boolean closed = false;
 
 	public void closeFile() {
-		if(pdfDecoder!=null){
-			renderJob.cancel();
-			waitForJob(renderJob);
-			loadAnnotationsJob.cancel();
-			waitForJob(loadAnnotationsJob);
-			createHyperlinksJob.cancel();
-			waitForJob(createHyperlinksJob);
-			disposeOldHyperlinks();
-			annotationHyperlinkMap.clear();
-			pdfDecoder.closePdfFile();
+		closed = true;
+		// The hyperlinks job would schedule loading the annotations again
+		createHyperlinksJob.cancel();
+		waitForJob(createHyperlinksJob);
+		prefetchJob.cancel();
+		waitForJob(prefetchJob);
+		renderJob.cancel();
+		waitForJob(renderJob);
+		loadAnnotationsJob.cancel();
+		waitForJob(loadAnnotationsJob);
+		for(AnnotationWorkerJob worker : annotationWorkers){
+			worker.cancel();
+			waitForJob(worker);
+			worker.closeDecoder();
 		}
-		if(image!=null) {
-			image.dispose();
+		fingerprintJob.cancel();
+		waitForJob(fingerprintJob);
+		if (reloadedFingerprints != null) {
+			// Discards the images kept aside for the pending reload
+			imageCache.reattach(getFile(), Collections.<Integer>emptySet());
+			reloadedFingerprints = null;
+			reloadedAnnotations = null;
 		}
+		disposeOldHyperlinks();
+		releaseDecoder(true);
+		// Idle decoders of the pool may still have the file open
+		decoderPool.discardIdle(this);
+		decoderPool.discardIdle(prefetchJob);
+		releaseImage();
+		releasePreview();
+		disposeTiles();
 		pdfDisplay.dispose();
 		this.dispose();
 	}
 
+	/**
+	 * Returns an estimate of the memory held by the page in bytes: the images
+	 * it displays and its annotations. The displayed images of the shared
+	 * cache are counted, as they can't be evicted while they are displayed.
+	 * Must be called in the UI thread.
+	 */
+	public long getMemoryUsage() {
+		long result = getImageSize(image) + getImageSize(previewImage);
+		for (Image tile : tiles.values()) {
+			result += getImageSize(tile);
+		}
+		return result + annotations.getMemoryUsage();
+	}
+
+	private static long getImageSize(Image image) {
+		if ((image == null) || image.isDisposed()) {
+			return 0;
+		}
+		Rectangle bounds = image.getBounds();
+		return 4L * bounds.width * bounds.height;
+	}
+
 	// Navigation
 
 	/**
@@ -286,10 +1340,22 @@ public class PdfViewPage extends ScrolledComposite {
 	}
 
 	public void setPageInForeground(boolean putInForeGround){
+		inForeground=putInForeGround;
 		if(!putInForeGround){
 			disposeOldHyperlinks();
-		}else if(!DESTROY_LINKS_ON_FOCUS_LOSS){
-			createHyperlinks();
+			releaseDecoder();
+		}else{
+			boolean reacquired=false;
+			try {
+				reacquired=(getFile()!=null)&&acquireDecoder(getFile().getLocation().toOSString());
+			} catch (PdfException e) {
+				Activator.logError("Can't reopen PDF file", e);
+			}
+			if(reacquired){
+				redraw();
+			}else if(!DESTROY_LINKS_ON_FOCUS_LOSS){
+				createHyperlinks();
+			}
 		}
 	}
 
@@ -297,7 +1363,7 @@ public class PdfViewPage extends ScrolledComposite {
 	 * Returns the number of pages in the PDF file.
 	 */
 	public int getPageCount() {
-		return pdfDecoder.getPageCount();
+		return pageCount;
 	}
 
 	/**
@@ -326,7 +1392,6 @@ public class PdfViewPage extends ScrolledComposite {
 	}
 
 	private int getPageDimension(boolean height) {
-		PdfPageData pageData = pdfDecoder.getPdfPageData();
 		int page = getPage();
 		int rotation = getPageRotation();
 		if ((rotation == 90) || (rotation == 270)) {
@@ -340,7 +1405,7 @@ public class PdfViewPage extends ScrolledComposite {
 	 * Returns the rotation of the page in degrees.
 	 */
 	public int getPageRotation() {
-		return pdfDecoder.getPdfPageData().getRotation(getPage());
+		return pageData.getRotation(getPage());
 	}
 
 	// Zoom
@@ -421,27 +1486,48 @@ public class PdfViewPage extends ScrolledComposite {
 	// the page is marked as to be loaded by the next running loadAnnotationsJob
 
 	/**
-	 * Map of page numer to hyperlink annotations on that page in the PDF file.
+	 * The hyperlink annotations of the loaded pages of the PDF file.
 	 */
-	private final Map<Integer, List<PdfAnnotation>> annotations = new HashMap<Integer, List<PdfAnnotation>>();
+	private final PdfAnnotationStore annotations = new PdfAnnotationStore();
 	private Integer pageWithPriorityToLoad=null;
 
-	public PdfAnnotation[] getAnnotationsOnPage(int page) {
-		List<PdfAnnotation> loadedAnnotations=annotations.get(page);
-		if(loadedAnnotations==null){
-			return new PdfAnnotation[0];
-		}else{
-			return loadedAnnotations.toArray(new PdfAnnotation[0]);
-		}
+	/**
+	 * The persistent index of the annotations of the current version of the
+	 * file, which is read before parsing the first page and written when all
+	 * pages are parsed.
+	 */
+	private PdfAnnotationIndex annotationIndex;
+	private boolean annotationIndexRead=false;
+	private boolean annotationIndexWritten=false;
+
+	/**
+	 * Returns a view of the annotations on the given page, which is empty if
+	 * they are not loaded yet.
+	 */
+	public PdfAnnotationStore.Slice getAnnotationsOnPage(int page) {
+		return annotations.getPage(page);
+	}
+
+	/**
+	 * Returns the annotation pointing to the given position of the given
+	 * source file, or else the nearest one, or null if no loaded annotation
+	 * points to the file. The line number is 0-based.
+	 */
+	public PdfAnnotation findAnnotation(URI fileURI, int lineNumber, int columnNumber) {
+		return annotations.findNearest(fileURI, lineNumber, columnNumber);
 	}
 
 	private final Job resetAnnotationsJob=new Job("Resetting point-and-click hyperlinks"){
 		@Override
 		public IStatus run(IProgressMonitor monitor) {
-			if(renderJob.getResult() != null){
-				renderJob.cancel();
-				loadAnnotationsJob.cancel();
-				waitForJob(loadAnnotationsJob);
+			//the annotations must be cleared even if no page was rendered, they would be written into the index of the new version
+			renderJob.cancel();
+			loadAnnotationsJob.cancel();
+			waitForJob(loadAnnotationsJob);
+			if(reloadedFingerprints!=null){
+				reloadedAnnotations=annotations.removeAll();
+			}else{
+				reloadedAnnotations=null;
 				annotations.clear();
 			}
 			return Status.OK_STATUS;
@@ -455,88 +1541,226 @@ public class PdfViewPage extends ScrolledComposite {
 		public IStatus run(IProgressMonitor monitor) {
 			waitForJob(renderJob);
 
-			if(monitor.isCanceled()){
+			if(monitor.isCanceled()||closed){
 				return Status.CANCEL_STATUS;
 			}
 
-			Integer page=getNextPageToLoad();
-			if(page==null){
+			if(!annotationIndexRead){
+				annotationIndexRead=true;
+				if(annotationIndex.read(annotations)){
+					annotationIndexWritten=true;
+				}
+			}
+
+			List<Integer> pages=getNextPagesToLoad(annotationWorkers.length);
+			if(pages.isEmpty()){
+				//the workers are idle, their decoders are no longer needed
+				for(AnnotationWorkerJob worker : annotationWorkers){
+					worker.closeDecoder();
+				}
+				if(!annotationIndexWritten){
+					annotationIndexWritten=true;
+					annotationIndex.write(annotations);
+				}
 				return Status.OK_STATUS;
 			} else if(monitor.isCanceled()){
 				return Status.CANCEL_STATUS;
 			}
 
-			List<PdfAnnotation> annotationsOnPage=getPossiblyIncompleteListOfAnnotationsForPage(page, monitor);
+			//one page per worker, each worker parses with its own decoder
+			String path=getFile().getLocation().toOSString();
+			int version=fileVersion;
+			for(int i=0;i<pages.size();i++){
+				annotationWorkers[i].load(pages.get(i), path, version);
+			}
+			for(AnnotationWorkerJob worker : annotationWorkers){
+				waitForJob(worker);
+			}
 
-			if(monitor.isCanceled()){
+			if(monitor.isCanceled()||closed){
 				return Status.CANCEL_STATUS;
 			}
-			annotations.put(page, annotationsOnPage);
 			this.schedule();
 			return Status.OK_STATUS;
 		}
 
-		private Integer getNextPageToLoad(){
+		@Override
+		protected void canceling() {
+			for(AnnotationWorkerJob worker : annotationWorkers){
+				worker.cancel();
+			}
+		}
+
+		private List<Integer> getNextPagesToLoad(int count){
+			List<Integer> result=new ArrayList<Integer>(count);
 			final Integer currentPriorityPage=pageWithPriorityToLoad;
 			int pageCount=getPageCount();
-			if(currentPriorityPage!=null && !annotations.containsKey(currentPriorityPage) && currentPriorityPage<=pageCount){
-				 return currentPriorityPage;
-			}else{
-				for(int i=1;i<=pageCount; i++){
-					if(!annotations.containsKey(i)){
-						return i;
-					}
+			if(currentPriorityPage!=null && !annotations.isPageLoaded(currentPriorityPage) && currentPriorityPage<=pageCount){
+				result.add(currentPriorityPage);
+			}
+			for(int i=1;i<=pageCount && result.size()<count; i++){
+				if(!annotations.isPageLoaded(i) && !result.contains(i)){
+					result.add(i);
 				}
 			}
-			return null;
+			return result;
+		}
+	};
+
+	private static final int ANNOTATION_WORKER_COUNT=Integer.parseInt(System.getProperty("pdfViewAnnotationWorkers", String.valueOf(Math.min(4, Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	private final AnnotationWorkerJob[] annotationWorkers=createAnnotationWorkers();
+
+	private AnnotationWorkerJob[] createAnnotationWorkers(){
+		AnnotationWorkerJob[] result=new AnnotationWorkerJob[Math.max(1, ANNOTATION_WORKER_COUNT)];
+		for(int i=0;i<result.length;i++){
+			result[i]=new AnnotationWorkerJob();
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the annotations of one page at a time with its own decoder, so
+	 * that pages can be parsed in parallel and without blocking rendering.
+	 */
+	private class AnnotationWorkerJob extends Job {
+
+		private PdfDecoder decoder;
+
+		private MappedPdfInputStream mappedFile;
+
+		private PdfLinkAnnotationReader linkReader;
+
+		private final TexteditUriParser uriParser = new TexteditUriParser();
+
+		/**
+		 * The version of the file opened by the decoder, 0 if none.
+		 */
+		private int openedFileVersion=0;
+
+		private int targetPage;
+
+		private String targetPath;
+
+		private int targetFileVersion;
+
+		public AnnotationWorkerJob() {
+			super("Loading annotations for point-and-click hyperlinks");
+			setSystem(true);
+		}
+
+		/**
+		 * Schedules parsing the annotations of the given page of the given
+		 * version of the file with the given path.
+		 */
+		public void load(int page, String path, int version){
+			synchronized (this) {
+				targetPage=page;
+				targetPath=path;
+				targetFileVersion=version;
+			}
+			schedule();
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			int page;
+			String path;
+			int version;
+			synchronized (this) {
+				page=targetPage;
+				path=targetPath;
+				version=targetFileVersion;
+			}
+			if(monitor.isCanceled()||closed){
+				return Status.CANCEL_STATUS;
+			}
+			if(openedFileVersion!=version){
+				closeDecoder();
+				try {
+					decoder=new PdfDecoder();
+					mappedFile=openPdfFile(decoder, path);
+					linkReader=new PdfLinkAnnotationReader(decoder);
+				} catch (PdfException e) {
+					Activator.logError("Can't open PDF file for loading annotations", e);
+					decoder=null;
+					linkReader=null;
+					return Status.CANCEL_STATUS;
+				}
+				openedFileVersion=version;
+			}
+			List<PdfAnnotation> annotationsOnPage=getPossiblyIncompleteListOfAnnotationsForPage(page, monitor);
+			if(monitor.isCanceled()||(version!=fileVersion)){
+				return Status.CANCEL_STATUS;
+			}
+			annotations.putPage(page, annotationsOnPage);
+			return Status.OK_STATUS;
 		}
 
-		private void addRawObjectToPdfAnnotationList(Integer page, Object rawObject, List<PdfAnnotation> list, Map<String, IFile> fileCache){
+		/**
+		 * Closes the file opened by the decoder. Must not be called while the
+		 * job is running.
+		 */
+		public void closeDecoder(){
+			if(decoder!=null){
+				decoder.closePdfFile();
+				closeMappedFile(mappedFile);
+				mappedFile=null;
+				decoder=null;
+				linkReader=null;
+			}
+			openedFileVersion=0;
+		}
+
+		/**
+		 * Adds the annotation of the given raw object, if it is a point-and-click
+		 * link, to the given list, and the path of its target to the given list
+		 * of target paths. The target file is resolved later.
+		 */
+		private void addRawObjectToPdfAnnotationList(Integer page, Object rawObject, List<PdfAnnotation> list, List<String> targetPaths){
 			if (rawObject instanceof FormObject) {
 				FormObject formObject = (FormObject) rawObject;
 				int subtype = formObject.getParameterConstant(PdfDictionary.Subtype);
 				if (subtype == PdfDictionary.Link) {
 					PdfObject anchor = formObject.getDictionary(PdfDictionary.A);
 					try {
-						byte[] uriDecodedBytes = anchor.getTextStreamValue(PdfDictionary.URI).getBytes(ISOCHARSET); 
-						URI uri = new URI(StringEscapeUtils.unescapeHtml(new String(uriDecodedBytes)));
-						if (uri.getScheme().equals("textedit")) { //$NON-NLS-1$
-							String[] sections = uri.getPath().split(":"); //$NON-NLS-1$
-							String path = (uri.getAuthority() == null ? "" : uri.getAuthority()) + sections[0]; //$NON-NLS-1$
-							IFile targetIFile=null;
-							File targetFile = new File(path).getAbsoluteFile();
-							if(targetFile.exists()) {
-								URI targetURI=targetFile.toURI().normalize();
-								//TODO all targetIFile will be removed later
-								//reuse file cache for path->targetFile 
-								if(fileCache.containsKey(path)){
-									targetIFile=fileCache.get(path);
-								}else{
-									IFile[] files = ResourcesPlugin.getWorkspace().getRoot().findFilesForLocationURI(targetURI);
-									for (IFile iFile : files) {
-										if(iFile.exists()) {
-											targetIFile=iFile;
-										}
-									}
-									fileCache.put(path, targetIFile);
-								}
-								PdfAnnotation annotation = new PdfAnnotation();
-								annotation.page = page;
-								annotation.fileURI = targetURI;
-								annotation.lineNumber = Integer.parseInt(sections[1]) - 1;
-								annotation.columnNumber = Integer.parseInt(sections[2]); // This value is independent of tab width
-								float[] rectangle = formObject.getFloatArray(PdfDictionary.Rect);
-								annotation.left = rectangle[0];
-								annotation.bottom = rectangle[1];
-								annotation.right = rectangle[2];
-								annotation.top = rectangle[3];
-								list.add(annotation);
+						String uriString = anchor.getTextStreamValue(PdfDictionary.URI);
+						String path;
+						int lineNumber;
+						int columnNumber;
+						if (uriParser.parse(uriString)) {
+							path = uriParser.getPath();
+							lineNumber = uriParser.getLineNumber();
+							columnNumber = uriParser.getColumnNumber();
+						} else {
+							//escaped or unusual URIs are decoded by java.net.URI
+							byte[] uriDecodedBytes = uriString.getBytes(ISOCHARSET); 
+							URI uri = new URI(StringEscapeUtils.unescapeHtml(new String(uriDecodedBytes)));
+							if (!uri.getScheme().equals("textedit")) { //$NON-NLS-1$
+								return;
 							}
+							String[] sections = uri.getPath().split(":"); //$NON-NLS-1$
+							path = (uri.getAuthority() == null ? "" : uri.getAuthority()) + sections[0]; //$NON-NLS-1$
+							lineNumber = Integer.parseInt(sections[1]);
+							columnNumber = Integer.parseInt(sections[2]);
 						}
+						PdfAnnotation annotation = new PdfAnnotation();
+						annotation.page = page;
+						annotation.lineNumber = lineNumber - 1;
+						annotation.columnNumber = columnNumber; // This value is independent of tab width
+						float[] rectangle = formObject.getFloatArray(PdfDictionary.Rect);
+						annotation.left = rectangle[0];
+						annotation.bottom = rectangle[1];
+						annotation.right = rectangle[2];
+						annotation.top = rectangle[3];
+						list.add(annotation);
+						targetPaths.add(path);
 					} catch (URISyntaxException e) {
 						Activator.logError("Invalid annotation URI", e);
 					} catch (ArrayIndexOutOfBoundsException e) {
 						Activator.logError("Error while parsing annotation URI", e);
+					} catch (NumberFormatException e) {
+						Activator.logError("Error while parsing annotation URI", e);
 					}
 				}
 			}
@@ -546,33 +1770,60 @@ public class PdfViewPage extends ScrolledComposite {
 		 * the list is incomplete if the job was cancelled
 		 * */
 		private List<PdfAnnotation> getPossiblyIncompleteListOfAnnotationsForPage(Integer page, IProgressMonitor monitor){
-			AcroRenderer formRenderer = pdfDecoder.getFormRenderer();
 			monitor.setTaskName(getFileName()+" page "+page);
 			List<PdfAnnotation> annotationsOnPage = new ArrayList<PdfAnnotation>();
+			List<String> targetPaths = new ArrayList<String>();
 
-			//TODO check if this is still correct:
-			//This getter call accounts for 70-99% of the time spent in this method!!
-			//Is there a later more performant jpedal version that can be used?
-			//Can the currently used version be patched?
+			List<FormObject> links = linkReader.readLinks(page);
+			if(links!=null){
+				for (FormObject link : links) {
+					if(monitor.isCanceled()){
+						break;
+					}
+					addRawObjectToPdfAnnotationList(page, link, annotationsOnPage, targetPaths);
+				}
+				return resolveTargets(annotationsOnPage, targetPaths);
+			}
+
+			//fall back to the form renderer, which creates the form components of all annotations on the page
+			//this getter call accounts for 70-99% of the time spent in this method
+			AcroRenderer formRenderer = decoder.getFormRenderer();
 			PdfArrayIterator pdfAnnotations = formRenderer.getAnnotsOnPage(page);
 			if(pdfAnnotations!=null){
-				Map<String, IFile> fileCache=new HashMap<String, IFile>();
 				while (!monitor.isCanceled() && pdfAnnotations.hasMoreTokens()) {
 					String key = pdfAnnotations.getNextValueAsString(true);
 					Object rawObject = formRenderer.getFormDataAsObject(key);
 					if (rawObject instanceof Object[]) {
 						Object[] rawObjects = (Object[]) rawObject;
 						for (Object object : rawObjects) {
-							addRawObjectToPdfAnnotationList(page, object, annotationsOnPage, fileCache);
+							addRawObjectToPdfAnnotationList(page, object, annotationsOnPage, targetPaths);
 						}
 					} else {
-						addRawObjectToPdfAnnotationList(page, rawObject, annotationsOnPage, fileCache);
+						addRawObjectToPdfAnnotationList(page, rawObject, annotationsOnPage, targetPaths);
 					}
 				}
 			}
-			return annotationsOnPage;
+			return resolveTargets(annotationsOnPage, targetPaths);
 		}
-	};
+
+		/**
+		 * Resolves the target files of the given annotations in one batch, and
+		 * returns the annotations whose target file exists.
+		 */
+		private List<PdfAnnotation> resolveTargets(List<PdfAnnotation> annotationsOnPage, List<String> targetPaths){
+			Map<String, URI> targetURIs = Activator.getAnnotationTargetResolver().resolve(targetPaths);
+			List<PdfAnnotation> result = new ArrayList<PdfAnnotation>(annotationsOnPage.size());
+			for (int i = 0; i < annotationsOnPage.size(); i++) {
+				URI targetURI = targetURIs.get(targetPaths.get(i));
+				if (targetURI != null) {
+					PdfAnnotation annotation = annotationsOnPage.get(i);
+					annotation.fileURI = targetURI;
+					result.add(annotation);
+				}
+			}
+			return result;
+		}
+	}
 
 	private static void waitForJob(Job job) {
 		try {
@@ -585,9 +1836,23 @@ public class PdfViewPage extends ScrolledComposite {
 	// Hyperlinks
 
 	/**
-	 * The annotation-to-hyperlink mappings.
+	 * Finds the hyperlinks of the current page under the mouse, or null if
+	 * they are not created. Replaced as a whole, so it can be read in any
+	 * thread.
+	 */
+	private volatile PdfAnnotationHitIndex hitIndex;
+
+	/**
+	 * Returns the hyperlinks of the current page with the current zoom factor,
+	 * or null if they are not created yet.
 	 */
-	private final Map<PdfAnnotation, PdfAnnotationHyperlink> annotationHyperlinkMap = new HashMap<PdfAnnotation, PdfAnnotationHyperlink>();
+	private PdfAnnotationHitIndex getHitIndex() {
+		PdfAnnotationHitIndex currentHitIndex = hitIndex;
+		if ((currentHitIndex == null) || (currentHitIndex.getPage() != getPage()) || (currentHitIndex.getZoom() != getZoom())) {
+			return null;
+		}
+		return currentHitIndex;
+	}
 
 	private final Job createHyperlinksJob = new Job("Creating point-and-click hyperlinks") {
 
@@ -601,23 +1866,36 @@ public class PdfViewPage extends ScrolledComposite {
 				return Status.CANCEL_STATUS;
 			}
 			disposeOldHyperlinks();
-			annotationHyperlinkMap.clear();
 			waitForPageAnnotationsToBeLoaded(monitor);
 			if(monitor.isCanceled()){
 				return Status.CANCEL_STATUS;
 			}
 
-			PdfAnnotation[] annotationsOnPage = getAnnotationsOnPage(page);
+			PdfAnnotationStore.Slice annotationsOnPage = getAnnotationsOnPage(page);
 			monitor.setTaskName(getFileName() + " page "+page);
-			fillAnnotationHyperlinkMap(annotationsOnPage, monitor);
+			float zoom = getZoom();
+			PdfAnnotationHitIndex newHitIndex = new PdfAnnotationHitIndex(annotationsOnPage, page, zoom, getPageRotation(), getPageWidth() * zoom, getPageHeight() * zoom);
+			if(!monitor.isCanceled()){
+				hitIndex = newHitIndex;
+				Display.getDefault().asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+						if(!pdfDisplay.isDisposed()){
+							showPendingHighlight();
+						}
+					}
+
+				});
+			}
 
 			return monitor.isCanceled()?Status.CANCEL_STATUS:Status.OK_STATUS;
 		}
 
 		private void waitForPageAnnotationsToBeLoaded(IProgressMonitor monitor){
-			while(!annotations.containsKey(page)){
+			while(!annotations.isPageLoaded(page)){
 				monitor.setTaskName("waiting for annotations to be loaded");
-				if(monitor.isCanceled()){
+				if(monitor.isCanceled()||closed){
 					return;
 				}
 				pageWithPriorityToLoad=page;
@@ -628,46 +1906,16 @@ public class PdfViewPage extends ScrolledComposite {
 			}
 		}
 
-		private void fillAnnotationHyperlinkMap(final PdfAnnotation[] annotationsOnPage, final IProgressMonitor monitor){
-			Display.getDefault().syncExec(new Runnable() {
-				@Override
-				public void run() {
-					for (final PdfAnnotation annotation : annotationsOnPage) {
-						if (monitor.isCanceled()) {
-							return;
-						}
-						if(!pdfDisplay.isDisposed()){
-							PdfAnnotationHyperlink hyperlink = new PdfAnnotationHyperlink(pdfDisplay, annotation);
-							annotationHyperlinkMap.put(annotation, hyperlink);
-							float zoom = getZoom();
-							float left = annotation.left * zoom;
-							float right = annotation.right * zoom;
-							float width = Math.abs(right - left);
-							float top = annotation.top * zoom;
-							float bottom = annotation.bottom * zoom;
-							float height = Math.abs(bottom - top);
-							Rectangle2D.Float bounds = new Rectangle2D.Float(left, top, width, height);
-							float pageWidth = getPageWidth() * zoom;
-							float pageHeight = getPageHeight() * zoom;
-							transform(bounds, getPageRotation(), pageWidth, pageHeight);
-							hyperlink.setBounds((int)bounds.x, (int)bounds.y, (int)bounds.width, (int)bounds.height);
-						}
-					}
-				}
-			});
-		}
 	};
 
 	private void disposeOldHyperlinks(){
-		Display.getDefault().syncExec(new Runnable() {
+		hitIndex = null;
+		Display.getDefault().asyncExec(new Runnable() {
 
 			@Override
 			public void run() {
 				if(!pdfDisplay.isDisposed()){
-					Control[] oldHyperlinks = pdfDisplay.getChildren();
-					for (Control oldHyperlink : oldHyperlinks) {
-						oldHyperlink.dispose();
-					}
+					pdfDisplay.setCursor(null);
 				}
 			}
 
@@ -684,63 +1932,113 @@ public class PdfViewPage extends ScrolledComposite {
 		createHyperlinksJob.schedule();
 	}
 
-	private void transform(Rectangle2D.Float rectangle, int rotation, float pageWidth, float pageHeight) {
-		float x = rectangle.x;
-		float y = rectangle.y;
-		float width = rectangle.width;
-		float height = rectangle.height;
-		switch (rotation) {
-		case 0:
-			rectangle.y = pageHeight - y;
-			break;
-		case 90:
-			rectangle.x = y - height;
-			rectangle.y = x - width;
-			rectangle.width = height;
-			rectangle.height = width;
-			break;
-		case 180:
-			rectangle.x = pageWidth - x - width;
-			break;
-		case 270:
-			rectangle.x = pageHeight - y;
-			rectangle.y = x - width;
-			rectangle.width = height;
-			rectangle.height = width;
-			break;
+	/**
+	 * Shows the hand cursor over the hyperlinks and opens the target of the
+	 * clicked hyperlink, instead of a control per hyperlink.
+	 */
+	private class HyperlinkMouseListener extends MouseAdapter implements MouseMoveListener {
+
+		@Override
+		public void mouseMove(MouseEvent event) {
+			PdfAnnotationHitIndex currentHitIndex = getHitIndex();
+			boolean overHyperlink = (currentHitIndex != null) && (currentHitIndex.find(event.x, event.y) >= 0);
+			pdfDisplay.setCursor(overHyperlink ? event.display.getSystemCursor(SWT.CURSOR_HAND) : null);
+		}
+
+		@Override
+		public void mouseDown(MouseEvent event) {
+			PdfAnnotationHitIndex currentHitIndex = getHitIndex();
+			int index = (currentHitIndex == null) ? -1 : currentHitIndex.find(event.x, event.y);
+			if (index >= 0) {
+				PdfAnnotationStore.Slice annotationsOnPage = currentHitIndex.getAnnotations();
+				URI fileURI = annotationsOnPage.getFileURI(index);
+				if (fileURI != null) {
+					TextEditorUtils.revealPosition(fileURI, annotationsOnPage.getLineNumber(index), annotationsOnPage.getColumnNumber(index), 1);
+				}
+			}
 		}
+
 	}
 
 	// Hyperlink highlighting
 	// TODO extract
 
 	/**
-	 * The currently highlighted hyperlink.
+	 * The bounds of the currently highlighted hyperlink.
 	 */
-	private PdfAnnotationHyperlink highlightedHyperlink;
+	private Rectangle highlightedHyperlink;
 
 	/**
 	 * The space between the highlighted hyperlink and its outline.
 	 */
 	private static final float HYPERLINK_HIGHLIGHT_PADDING = 5;
 
+	private static final int HYPERLINK_HIGHLIGHT_LINE_WIDTH = 2;
+
 	/**
-	 * Reveals and highlights the hyperlink of the given annotation.
+	 * Reveals and highlights the hyperlink of the given annotation as soon as
+	 * the hyperlinks of its page are created, without waiting for them. Must
+	 * be called in the UI thread.
 	 */
 	public void highlightAnnotation(PdfAnnotation annotation) {
-		setPage(annotation.page);
-		waitForJob(renderJob);
-		waitForJob(createHyperlinksJob);
-		PdfAnnotationHyperlink hyperlink = annotationHyperlinkMap.get(annotation);
-		if (hyperlink != null) {
-			highlightedHyperlink = hyperlink;
-			scrollTo(hyperlink);
+		revealAnnotation(annotation, 0, null);
+	}
+
+	/**
+	 * The annotation to highlight as soon as the hyperlinks of its page are
+	 * created, or null.
+	 */
+	private PdfAnnotation pendingHighlight;
+
+	/**
+	 * The time of the caret event which requested the pending or the
+	 * currently highlighted annotation in nanoseconds, 0 once the highlight
+	 * is painted.
+	 */
+	private long highlightRequestTime;
+
+	private PdfCaretFollower.LatencyStatistics highlightLatency;
+
+	/**
+	 * Reveals and highlights the hyperlink of the given annotation without
+	 * waiting for the hyperlinks of its page to be created. The page is only
+	 * changed if the annotation is on another page. The time from the given
+	 * request time to the painting of the highlight is added to the given
+	 * statistics, unless the request time is 0. Must be called in the UI
+	 * thread.
+	 */
+	public void revealAnnotation(PdfAnnotation annotation, long requestTime, PdfCaretFollower.LatencyStatistics latency) {
+		pendingHighlight = annotation;
+		highlightRequestTime = requestTime;
+		highlightLatency = latency;
+		if (annotation.page != getPage()) {
+			setPage(annotation.page);
+		}
+		showPendingHighlight();
+	}
+
+	/**
+	 * Highlights the pending annotation if the hyperlinks of the current page
+	 * are created.
+	 */
+	private void showPendingHighlight() {
+		PdfAnnotationHitIndex currentHitIndex = getHitIndex();
+		if ((pendingHighlight == null) || (currentHitIndex == null)) {
+			return;
+		}
+		int index = currentHitIndex.indexOf(pendingHighlight);
+		pendingHighlight = null;
+		if (index >= 0) {
+			highlightedHyperlink = currentHitIndex.getBounds(index);
+			scrollTo(highlightedHyperlink);
 			hyperlinkHighlightAnimator.start();
+		} else {
+			highlightRequestTime = 0;
 		}
 	}
 
-	private void scrollTo(Control control) {
-		Rectangle itemRect = getDisplay().map(control.getParent(), this, control.getBounds());
+	private void scrollTo(Rectangle bounds) {
+		Rectangle itemRect = getDisplay().map(pdfDisplay, this, bounds);
 		final int padding = 10;
 		itemRect.x -= padding;
 		itemRect.y -= padding;
@@ -769,22 +2067,47 @@ public class PdfViewPage extends ScrolledComposite {
 
 		@Override
 		public void paintControl(PaintEvent e) {
-			if ((highlightedHyperlink != null) && !highlightedHyperlink.isDisposed()) {
+			// The highlight is hidden while the hyperlinks of the page are not created
+			if ((highlightedHyperlink != null) && (getHitIndex() != null)) {
 				e.gc.setForeground(Display.getDefault().getSystemColor(SWT.COLOR_BLUE));
-				e.gc.setLineWidth(2);
-				Rectangle bounds = highlightedHyperlink.getBounds();
-				float padding = HYPERLINK_HIGHLIGHT_PADDING * getZoom() * hyperlinkHighlightPaddingScale;
-				float x = bounds.x - padding;
-				float y = bounds.y - padding;
-				float width = bounds.width + 2 * padding;
-				float height = bounds.height + 2 * padding;
+				e.gc.setLineWidth(HYPERLINK_HIGHLIGHT_LINE_WIDTH);
+				int padding = getHyperlinkHighlightPadding();
+				Rectangle outline = getHyperlinkHighlightOutline();
 				e.gc.setAlpha(hyperlinkHighlightAlpha);
-				e.gc.drawRoundRectangle((int)x, (int)y, (int)width, (int)height, (int)padding, (int)padding);
+				e.gc.drawRoundRectangle(outline.x, outline.y, outline.width, outline.height, padding, padding);
+				if (highlightRequestTime != 0) {
+					highlightLatency.add(System.nanoTime() - highlightRequestTime);
+					highlightRequestTime = 0;
+				}
 			}
 		}
 
 	}
 
+	private int getHyperlinkHighlightPadding() {
+		return (int)(HYPERLINK_HIGHLIGHT_PADDING * getZoom() * hyperlinkHighlightPaddingScale);
+	}
+
+	/**
+	 * Returns the rectangle of the outline of the highlighted hyperlink with
+	 * the current padding.
+	 */
+	private Rectangle getHyperlinkHighlightOutline() {
+		Rectangle bounds = highlightedHyperlink;
+		int padding = getHyperlinkHighlightPadding();
+		return new Rectangle(bounds.x - padding, bounds.y - padding, bounds.width + 2 * padding, bounds.height + 2 * padding);
+	}
+
+	/**
+	 * Returns the area painted by the outline of the highlighted hyperlink
+	 * with the current padding, including the line width.
+	 */
+	private Rectangle getHyperlinkHighlightArea() {
+		Rectangle outline = getHyperlinkHighlightOutline();
+		int margin = HYPERLINK_HIGHLIGHT_LINE_WIDTH;
+		return new Rectangle(outline.x - margin, outline.y - margin, outline.width + 2 * margin, outline.height + 2 * margin);
+	}
+
 	private enum HyperlinkHighlightAnimatorState {
 		FADE_IN {
 
@@ -861,7 +2184,7 @@ public class PdfViewPage extends ScrolledComposite {
 
 	private final HyperlinkHighlightAnimator hyperlinkHighlightAnimator = new HyperlinkHighlightAnimator();
 
-	private class HyperlinkHighlightAnimator implements Runnable {
+	private class HyperlinkHighlightAnimator implements AnimationScheduler.Animation {
 
 		private static final int INTERVAL = 10;
 
@@ -869,10 +2192,23 @@ public class PdfViewPage extends ScrolledComposite {
 
 		private final HyperlinkHighlightAnimatorState[] states = HyperlinkHighlightAnimatorState.values();
 
+		/**
+		 * The area painted by the outline in the previous step, which has to be
+		 * repainted along with the new one, or null.
+		 */
+		private Rectangle dirtyArea;
+
+		/**
+		 * The time of the last step in milliseconds, or -1 before the first
+		 * step.
+		 */
+		private long lastStepTime;
+
 		public void start() {
 			stateIndex = 0;
 			initState();
-			Display.getDefault().timerExec(0, this);
+			lastStepTime = -1;
+			AnimationScheduler.getInstance(getDisplay()).start(this, pdfDisplay, INTERVAL);
 		}
 
 		private void initState() {
@@ -880,23 +2216,53 @@ public class PdfViewPage extends ScrolledComposite {
 		}
 
 		@Override
-		public void run() {
+		public boolean step(long time) {
+			if (highlightedHyperlink == null || pdfDisplay.isDisposed()) {
+				dirtyArea = null;
+				return false;
+			}
+			// Frames may be farther apart than the interval, so as many steps are taken as intervals have passed
+			int stepCount = (lastStepTime < 0) ? 1 : (int)((time - lastStepTime) / INTERVAL);
+			lastStepTime = (lastStepTime < 0) ? time : lastStepTime + stepCount * INTERVAL;
+			int alpha = hyperlinkHighlightAlpha;
+			float paddingScale = hyperlinkHighlightPaddingScale;
+			boolean running = true;
+			for (int i = 0; running && (i < stepCount); i++) {
+				running = advance();
+			}
+			if (!running) {
+				highlightedHyperlink = null;
+				if (dirtyArea != null) {
+					pdfDisplay.redraw(dirtyArea.x, dirtyArea.y, dirtyArea.width, dirtyArea.height, false);
+				}
+				dirtyArea = null;
+				return false;
+			}
+			if ((alpha != hyperlinkHighlightAlpha) || (paddingScale != hyperlinkHighlightPaddingScale) || (dirtyArea == null)) {
+				// Only the outline is repainted instead of the whole page
+				Rectangle area = getHyperlinkHighlightArea();
+				Rectangle redrawnArea = (dirtyArea == null) ? area : dirtyArea.union(area);
+				dirtyArea = area;
+				pdfDisplay.redraw(redrawnArea.x, redrawnArea.y, redrawnArea.width, redrawnArea.height, false);
+			}
+			return true;
+		}
+
+		/**
+		 * Takes a step in the current state, or enters the next state if it is
+		 * ready, and returns false if the last state is ready.
+		 */
+		private boolean advance() {
 			HyperlinkHighlightAnimatorState state = states[stateIndex];
-			if (highlightedHyperlink == null || pdfDisplay == null || pdfDisplay.isDisposed()) {
-				return;
-			} else if (!state.isReady()) {
+			if (!state.isReady()) {
 				state.step();
-				pdfDisplay.redraw();
+			} else if (stateIndex < states.length - 1) {
+				stateIndex++;
+				initState();
 			} else {
-				if (stateIndex < states.length - 1) {
-					stateIndex++;
-					initState();
-				} else {
-					highlightedHyperlink = null;
-					return;
-				}
+				return false;
 			}
-			Display.getDefault().timerExec(INTERVAL, this);
+			return true;
 		}
 
 	}
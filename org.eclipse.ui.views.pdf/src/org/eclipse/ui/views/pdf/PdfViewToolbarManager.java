@@ -32,6 +32,13 @@ public class PdfViewToolbarManager {
 
 	private PdfViewPage page;
 
+	private final PdfCaretFollower caretFollower;
+
+	public PdfViewToolbarManager(PdfCaretFollower caretFollower) {
+		this.caretFollower = caretFollower;
+		followCaretAction.setChecked(caretFollower.isEnabled());
+	}
+
 	public void setPage(PdfViewPage page) {
 		this.page = page;
 	}
@@ -46,13 +53,16 @@ public class PdfViewToolbarManager {
 
 	private final FitToAction fitToHeightAction = new FitToAction("Height", "Height", false, true); //$NON-NLS-2$
 
+	private final FollowCaretAction followCaretAction = new FollowCaretAction();
+
 	private final IContributionItem[] contributions = new IContributionItem[] {
 		new ActionContributionItem(new FirstPageAction()),
 		new ActionContributionItem(new PreviousPageAction()),
 		new CurrentPageContribution(), new PageCountContribution(),
 		new ActionContributionItem(new NextPageAction()),
 		new ActionContributionItem(new LastPageAction()), new Separator(),
-		getZoomMenu()
+		getZoomMenu(), new Separator(),
+		new ActionContributionItem(followCaretAction)
 	};
 
 	public IContributionItem[] getToolbarContributions() {
@@ -404,6 +414,24 @@ public class PdfViewToolbarManager {
 
 	}
 
+	// Caret following
+
+	public class FollowCaretAction extends Action {
+
+		public FollowCaretAction() {
+			super(null, AS_CHECK_BOX);
+			setToolTipText("Highlight Caret Position");
+			setText(getToolTipText());
+			setImageDescriptor(Activator.getImageDescriptor(ICON_PATH + "Current.png")); //$NON-NLS-1$
+		}
+
+		@Override
+		public void run() {
+			caretFollower.setEnabled(isChecked());
+		}
+
+	}
+
 	private IContributionItem getZoomMenu() {
 		ToolbarSubmenuAction zoomMenu = new ToolbarSubmenuAction("Zoom", Activator.getImageDescriptor(ICON_PATH + "Zoom.png")); //$NON-NLS-2$
 		zoomMenu.addAction(new ZoomOutAction());
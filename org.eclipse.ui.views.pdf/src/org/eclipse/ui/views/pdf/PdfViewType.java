@@ -5,25 +5,49 @@ import java.util.Map.Entry;
 import java.util.WeakHashMap;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExecutableExtension;
 import org.eclipse.jface.action.IContributionItem;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.ui.part.PageBook;
 import org.eclipse.ui.views.file.IFileViewType;
 import org.eclipse.ui.views.pdf.PdfViewToolbarManager.FitToAction;
 
-public class PdfViewType implements IFileViewType<PdfViewPage> {
+/**
+ * The PDF file view type. The open mode of the pages can be selected per view
+ * by appending it to the class name in the binding of the view, for example
+ * <code>org.eclipse.ui.views.pdf.PdfViewType:mapped</code>, otherwise the
+ * default open mode is used.
+ */
+public class PdfViewType implements IFileViewType<PdfViewPage>, IExecutableExtension {
 
 	public static final String EXTENSION = "pdf"; //$NON-NLS-1$
 
+	private PdfViewPage.OpenMode openMode = PdfViewPage.OpenMode.getDefault();
+
+	@Override
+	public void setInitializationData(IConfigurationElement config, String propertyName, Object data) {
+		if (data instanceof String) {
+			openMode = PdfViewPage.OpenMode.parse((String)data, openMode);
+		}
+	}
+
+	public PdfViewPage.OpenMode getOpenMode() {
+		return openMode;
+	}
+
 	private final Map<IFile, PdfViewPage> pagesByFile = new WeakHashMap<IFile,PdfViewPage>();
 	
 	@Override
 	public PdfViewPage createPage(PageBook pageBook, IFile file) throws Exception {
-		PdfViewPage result = new PdfViewPage(pageBook, file);
+		PdfViewPage result = new PdfViewPage(pageBook, file, openMode);
 		pagesByFile.put(file, result);
 		return result;
 	}
 
-	private final PdfViewToolbarManager toolbar = new PdfViewToolbarManager();
+	private final PdfCaretFollower caretFollower = new PdfCaretFollower(this);
+
+	private final PdfViewToolbarManager toolbar = new PdfViewToolbarManager(caretFollower);
 
 	@Override
 	public IContributionItem[] getToolbarContributions() {
@@ -42,12 +66,17 @@ public class PdfViewType implements IFileViewType<PdfViewPage> {
 			}
 		}
 		this.page = page;
+		caretFollower.update();
 	}
 
 	public PdfViewPage getPage() {
 		return page;
 	}
 
+	public PdfCaretFollower getCaretFollower() {
+		return caretFollower;
+	}
+
 	public void release(IFile file){ // XXX workaround for Windows
 		PdfViewPage pageToClose = pagesByFile.get(file);
 		if(pageToClose!=null){
@@ -97,6 +126,51 @@ public class PdfViewType implements IFileViewType<PdfViewPage> {
 		}
 	}
 
+	/**
+	 * The position of a hibernated page in its file.
+	 */
+	private static class HibernatedState {
+
+		private final int page;
+
+		private final float zoom;
+
+		private final FitToAction fitToAction;
+
+		private final Point origin;
+
+		public HibernatedState(PdfViewPage page) {
+			this.page = page.getPage();
+			this.zoom = page.getZoom();
+			this.fitToAction = page.getFitToAction();
+			this.origin = page.getOrigin();
+		}
+
+	}
+
+	@Override
+	public long getMemoryUsage(PdfViewPage page) {
+		return page.getMemoryUsage();
+	}
+
+	@Override
+	public Object pageHibernated(PdfViewPage page) {
+		HibernatedState state = new HibernatedState(page);
+		pageClosed(page);
+		return state;
+	}
+
+	@Override
+	public void pageRevived(PdfViewPage page, Object state) {
+		if (state instanceof HibernatedState) {
+			HibernatedState hibernatedState = (HibernatedState)state;
+			page.setFitToAction(hibernatedState.fitToAction);
+			page.setZoom(hibernatedState.zoom);
+			page.setPage(hibernatedState.page);
+			page.setOrigin(hibernatedState.origin);
+		}
+	}
+
 	@Override
 	public IFile getFile(IFile sourceFile) {
 		return sourceFile;
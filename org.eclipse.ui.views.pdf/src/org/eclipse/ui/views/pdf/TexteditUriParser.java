@@ -0,0 +1,132 @@
+package org.eclipse.ui.views.pdf;
+
+/**
+ * Parses point-and-click URIs of the form
+ * <code>textedit://path:line:column[:endColumn]</code> without creating
+ * intermediate objects. The path of the previous URI is reused if it is the
+ * same, as consecutive links usually point to the same file. URIs with
+ * escaped characters, queries or fragments are not parsed, they have to be
+ * handled by {@link java.net.URI}. Not thread-safe.
+ */
+public class TexteditUriParser {
+
+	private static final String SCHEME = "textedit:"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of digits of a line or column number which can't
+	 * overflow an int.
+	 */
+	private static final int MAX_DIGITS = 9;
+
+	private String path;
+
+	private int lineNumber;
+
+	private int columnNumber;
+
+	/**
+	 * The position after the last parsed number.
+	 */
+	private int position;
+
+	/**
+	 * Returns whether the given URI has the textedit scheme.
+	 */
+	public static boolean isTexteditUri(String uri) {
+		return uri.startsWith(SCHEME);
+	}
+
+	/**
+	 * Parses the given URI, and returns false if it is not a textedit URI or
+	 * it can't be parsed without decoding.
+	 */
+	public boolean parse(String uri) {
+		if (!isTexteditUri(uri)) {
+			return false;
+		}
+		int length = uri.length();
+		for (int i = SCHEME.length(); i < length; i++) {
+			char character = uri.charAt(i);
+			if ((character <= ' ') || (character > 0xFF) || (character == '%') || (character == '&') || (character == '?') || (character == '#')) {
+				return false;
+			}
+		}
+		int pathStart = SCHEME.length();
+		int searchStart = pathStart;
+		if (uri.startsWith("//", pathStart)) { //$NON-NLS-1$
+			// The authority is part of the path, and the first colon is searched for after it
+			pathStart += 2;
+			searchStart = uri.indexOf('/', pathStart);
+			if (searchStart < 0) {
+				return false;
+			}
+		}
+		int pathEnd = uri.indexOf(':', searchStart);
+		if (pathEnd < 0) {
+			return false;
+		}
+		if (!parseNumber(uri, pathEnd + 1)) {
+			return false;
+		}
+		int line = lineNumber;
+		if ((position >= length) || (uri.charAt(position) != ':') || !parseNumber(uri, position + 1)) {
+			return false;
+		}
+		if ((position < length) && (uri.charAt(position) != ':')) {
+			return false;
+		}
+		columnNumber = lineNumber;
+		lineNumber = line;
+		int pathLength = pathEnd - pathStart;
+		if ((path == null) || (path.length() != pathLength) || !uri.regionMatches(pathStart, path, 0, pathLength)) {
+			path = uri.substring(pathStart, pathEnd);
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the decimal number at the given position into the line number
+	 * and sets the position after it.
+	 */
+	private boolean parseNumber(String uri, int start) {
+		int value = 0;
+		int index = start;
+		while ((index < uri.length()) && (index - start < MAX_DIGITS)) {
+			char character = uri.charAt(index);
+			if ((character < '0') || (character > '9')) {
+				break;
+			}
+			value = value * 10 + (character - '0');
+			index++;
+		}
+		if ((index == start) || ((index < uri.length()) && Character.isDigit(uri.charAt(index)))) {
+			return false;
+		}
+		lineNumber = value;
+		position = index;
+		return true;
+	}
+
+	/**
+	 * Returns the path of the file of the last parsed URI, including its
+	 * authority.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the 1-based line number of the last parsed URI.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the column number of the last parsed URI.
+	 */
+	public int getColumnNumber() {
+		return columnNumber;
+	}
+
+}